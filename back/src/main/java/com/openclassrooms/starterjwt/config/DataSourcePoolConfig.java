@@ -0,0 +1,42 @@
+package com.openclassrooms.starterjwt.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+@Configuration
+@Profile("prod")
+public class DataSourcePoolConfig {
+
+    /**
+     * Sizes the Hikari pool with {@link #poolSize(int)}, or with oc.app.datasourcePoolSize when it is set.
+     * This overrides spring.datasource.hikari.maximum-pool-size and minimum-idle, which are bound first.
+     * Static, so that the pool is sized after its properties are bound and before it is started or wrapped.
+     */
+    @Bean
+    public static BeanPostProcessor dataSourcePoolSizer(@Value("${oc.app.datasourcePoolSize:0}") int configuredSize) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource) {
+                    int size = configuredSize > 0 ? configuredSize : poolSize(Runtime.getRuntime().availableProcessors());
+                    HikariDataSource dataSource = (HikariDataSource) bean;
+                    dataSource.setMaximumPoolSize(size);
+                    dataSource.setMinimumIdle(size);
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * {@code cores * 2 + 1}: two connections per core, so that a core has work while the other request
+     * waits on the database, plus one spare for a request blocked on disk.
+     */
+    public static int poolSize(int cores) {
+        return cores * 2 + 1;
+    }
+}
@@ -0,0 +1,67 @@
+package com.openclassrooms.starterjwt.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hibernate second-level cache for read-mostly reference data, stored in process by Caffeine.
+ * Entries are invalidated by Hibernate whenever the cached entities are written through JPA.
+ */
+@Configuration
+public class EntityCacheConfig {
+    public static final String TEACHERS_REGION = "teachers";
+
+    private static final AtomicInteger MANAGERS = new AtomicInteger();
+
+    @Bean(destroyMethod = "close")
+    public CacheManager entityCacheManager(MeterRegistry meterRegistry,
+                                           @Value("${oc.app.teacherCacheMaxSize:1000}") long maxSize,
+                                           @Value("${oc.app.teacherCacheTtlMs:600000}") long ttlMs) {
+        // One manager per application context, so that test contexts never share cached rows
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("entity-cache-" + MANAGERS.incrementAndGet()), getClass().getClassLoader());
+
+        cacheManager.createCache(TEACHERS_REGION, boundedRegion(maxSize, ttlMs));
+        cacheManager.createCache(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME, boundedRegion(maxSize, ttlMs));
+        // Hibernate requires the update timestamps to outlive every cached query, so they never expire
+        cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, region());
+
+        cacheManager.getCacheNames().forEach(name -> JCacheMetrics.monitor(meterRegistry, cacheManager.getCache(name)));
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer entityCacheCustomizer(CacheManager entityCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, entityCacheManager);
+    }
+
+    private static CaffeineConfiguration<Object, Object> boundedRegion(long maxSize, long ttlMs) {
+        CaffeineConfiguration<Object, Object> configuration = region();
+        configuration.setMaximumSize(OptionalLong.of(maxSize));
+        configuration.setExpireAfterWrite(OptionalLong.of(TimeUnit.MILLISECONDS.toNanos(ttlMs)));
+        return configuration;
+    }
+
+    private static CaffeineConfiguration<Object, Object> region() {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        // Hibernate cache entries are immutable, copying them on every read would only add garbage
+        configuration.setStoreByValue(false);
+        configuration.setStatisticsEnabled(true);
+        return configuration;
+    }
+}
@@ -0,0 +1,105 @@
+package com.openclassrooms.starterjwt.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.boot.actuate.metrics.web.servlet.WebMvcTagsContributor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tags the http.server.requests timer with the controller method that served the request, and
+ * counts the requests each method is currently serving.
+ */
+@Configuration
+public class RequestMetricsConfig implements WebMvcConfigurer {
+    static final String HANDLER_TAG = "handler";
+
+    private final MeterRegistry meterRegistry;
+
+    public RequestMetricsConfig(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Bean
+    public WebMvcTagsContributor handlerTagsContributor() {
+        return new WebMvcTagsContributor() {
+            @Override
+            public Iterable<Tag> getTags(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                         Throwable exception) {
+                return Tags.of(HANDLER_TAG, handlerName(handler));
+            }
+
+            @Override
+            public Iterable<Tag> getLongRequestTags(HttpServletRequest request, Object handler) {
+                return Tags.of(HANDLER_TAG, handlerName(handler));
+            }
+        };
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new InFlightRequests(meterRegistry)).addPathPatterns("/api/**");
+    }
+
+    static String handlerName(Object handler) {
+        if (handler instanceof HandlerMethod) {
+            HandlerMethod handlerMethod = (HandlerMethod) handler;
+            return handlerMethod.getBeanType().getSimpleName() + "." + handlerMethod.getMethod().getName();
+        }
+        return "none";
+    }
+
+    private static class InFlightRequests implements AsyncHandlerInterceptor {
+        private static final String COUNTED = InFlightRequests.class.getName() + ".COUNTED";
+
+        private final MeterRegistry meterRegistry;
+
+        private final Map<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+
+        InFlightRequests(MeterRegistry meterRegistry) {
+            this.meterRegistry = meterRegistry;
+        }
+
+        @Override
+        public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+            // Asynchronous requests, such as the seat stream, come back through here when they complete
+            if (handler instanceof HandlerMethod && request.getAttribute(COUNTED) == null) {
+                AtomicInteger counter = inFlight.computeIfAbsent(handlerName(handler), this::register);
+                counter.incrementAndGet();
+                request.setAttribute(COUNTED, counter);
+            }
+            return true;
+        }
+
+        @Override
+        public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                    Exception ex) {
+            AtomicInteger counter = (AtomicInteger) request.getAttribute(COUNTED);
+            if (counter != null) {
+                request.removeAttribute(COUNTED);
+                counter.decrementAndGet();
+            }
+        }
+
+        private AtomicInteger register(String handler) {
+            AtomicInteger counter = new AtomicInteger();
+            Gauge.builder("http.server.requests.active", counter, AtomicInteger::get)
+                    .description("Requests being served by a controller method")
+                    .tag(HANDLER_TAG, handler)
+                    .register(meterRegistry);
+            return counter;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.openclassrooms.starterjwt.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+@Configuration
+public class StatementAccountingConfig {
+
+    // Static, so that the post-processor exists before the data source is created
+    @Bean
+    public static BeanPostProcessor statementAccountingPostProcessor(@Value("${oc.app.slowStatementMs:200}") long slowStatementMs) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource && !(bean instanceof StatementAccountingDataSource)) {
+                    return new StatementAccountingDataSource((DataSource) bean, slowStatementMs);
+                }
+                return bean;
+            }
+        };
+    }
+}
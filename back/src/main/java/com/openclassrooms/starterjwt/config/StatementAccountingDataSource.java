@@ -0,0 +1,163 @@
+package com.openclassrooms.starterjwt.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Counts the statements, rows and time spent in JDBC into the {@link StatementStats} of the current
+ * request, and logs a sample of the slow statements. Statements issued outside of a request, by
+ * scheduled tasks for instance, are only checked for slowness.
+ */
+public class StatementAccountingDataSource extends DelegatingDataSource implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(StatementAccountingDataSource.class);
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+
+    private static final long SAMPLE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final long slowStatementNanos;
+
+    private final AtomicLong nextSampleAt = new AtomicLong(System.nanoTime());
+
+    public StatementAccountingDataSource(DataSource targetDataSource, long slowStatementMs) {
+        super(targetDataSource);
+        this.slowStatementNanos = TimeUnit.MILLISECONDS.toNanos(slowStatementMs);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return connection(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return connection(super.getConnection(username, password));
+    }
+
+    @Override
+    public void close() throws IOException {
+        // Lets the context close the pool it wraps
+        if (getTargetDataSource() instanceof Closeable) {
+            ((Closeable) getTargetDataSource()).close();
+        }
+    }
+
+    /**
+     * Literal values are replaced by '?', bind parameters are never part of the logged text.
+     */
+    public static String redact(String sql) {
+        return NUMBER_LITERAL.matcher(STRING_LITERAL.matcher(sql).replaceAll("?")).replaceAll("?");
+    }
+
+    private Connection connection(Connection connection) {
+        return proxy(Connection.class, connection, (method, args) -> {
+            Object result = invoke(connection, method, args);
+            if (result instanceof CallableStatement) {
+                return statement(CallableStatement.class, (CallableStatement) result, (String) args[0]);
+            }
+            if (result instanceof PreparedStatement) {
+                return statement(PreparedStatement.class, (PreparedStatement) result, (String) args[0]);
+            }
+            if (result instanceof Statement) {
+                return statement(Statement.class, (Statement) result, null);
+            }
+            return result;
+        });
+    }
+
+    private <T extends Statement> T statement(Class<T> type, T statement, String preparedSql) {
+        return proxy(type, statement, (method, args) -> {
+            if (!method.getName().startsWith("execute")) {
+                Object result = invoke(statement, method, args);
+                return result instanceof ResultSet ? resultSet((ResultSet) result) : result;
+            }
+
+            long start = System.nanoTime();
+            Object result = invoke(statement, method, args);
+            long elapsed = System.nanoTime() - start;
+
+            StatementStats stats = StatementStats.current();
+            if (stats != null) {
+                stats.statement(elapsed);
+                stats.rows(Boolean.FALSE.equals(result) ? Math.max(statement.getUpdateCount(), 0) : updateCount(result));
+            }
+            if (elapsed >= slowStatementNanos) {
+                String sql = preparedSql != null ? preparedSql : args != null && args.length > 0 ? (String) args[0] : "batch";
+                sample(sql, elapsed);
+            }
+            return result instanceof ResultSet ? resultSet((ResultSet) result) : result;
+        });
+    }
+
+    private ResultSet resultSet(ResultSet resultSet) {
+        return proxy(ResultSet.class, resultSet, (method, args) -> {
+            Object result = invoke(resultSet, method, args);
+            StatementStats stats = StatementStats.current();
+            if (stats != null && "next".equals(method.getName()) && Boolean.TRUE.equals(result)) {
+                stats.rows(1);
+            }
+            return result;
+        });
+    }
+
+    private void sample(String sql, long elapsedNanos) {
+        long now = System.nanoTime();
+        long sampleAt = nextSampleAt.get();
+        if (now - sampleAt >= 0 && nextSampleAt.compareAndSet(sampleAt, now + SAMPLE_INTERVAL_NANOS)) {
+            logger.warn("Slow statement took {} ms: {}", TimeUnit.NANOSECONDS.toMillis(elapsedNanos), redact(sql));
+        }
+    }
+
+    private static long updateCount(Object result) {
+        long count = 0;
+        if (result instanceof Integer || result instanceof Long) {
+            count = ((Number) result).longValue();
+        } else if (result instanceof int[]) {
+            for (int rows : (int[]) result) {
+                count += Math.max(rows, 0);
+            }
+        } else if (result instanceof long[]) {
+            for (long rows : (long[]) result) {
+                count += Math.max(rows, 0);
+            }
+        }
+        return count;
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, T target, Handler handler) {
+        return (T) Proxy.newProxyInstance(StatementAccountingDataSource.class.getClassLoader(), new Class<?>[] {type},
+                (proxy, method, args) -> handler.handle(method, args));
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        Object handle(Method method, Object[] args) throws Throwable;
+    }
+}
@@ -0,0 +1,79 @@
+package com.openclassrooms.starterjwt.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the statements, rows and JDBC time of every request, tagged like http.server.requests,
+ * and warns about requests running more statements than the query budget.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+public class StatementAccountingFilter extends OncePerRequestFilter {
+    private static final Logger logger = LoggerFactory.getLogger(StatementAccountingFilter.class);
+
+    private final MeterRegistry meterRegistry;
+
+    private final int queryBudget;
+
+    public StatementAccountingFilter(MeterRegistry meterRegistry, @Value("${oc.app.queryBudget:20}") int queryBudget) {
+        this.meterRegistry = meterRegistry;
+        this.queryBudget = queryBudget;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        StatementStats stats = StatementStats.begin();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            StatementStats.end();
+            record(request, stats);
+        }
+    }
+
+    private void record(HttpServletRequest request, StatementStats stats) {
+        String handler = RequestMetricsConfig.handlerName(request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE));
+
+        DistributionSummary.builder("http.server.requests.jdbc.statements")
+                .tag(RequestMetricsConfig.HANDLER_TAG, handler)
+                .register(meterRegistry)
+                .record(stats.getStatements());
+        DistributionSummary.builder("http.server.requests.jdbc.rows")
+                .tag(RequestMetricsConfig.HANDLER_TAG, handler)
+                .register(meterRegistry)
+                .record(stats.getRows());
+        Timer.builder("http.server.requests.jdbc")
+                .tag(RequestMetricsConfig.HANDLER_TAG, handler)
+                .register(meterRegistry)
+                .record(stats.getNanos(), TimeUnit.NANOSECONDS);
+
+        if (stats.getStatements() > queryBudget) {
+            Counter.builder("http.server.requests.over.query.budget")
+                    .tag(RequestMetricsConfig.HANDLER_TAG, handler)
+                    .register(meterRegistry)
+                    .increment();
+            logger.warn("{} {} ({}) ran {} statements, over the budget of {}: {} rows, {} ms in JDBC",
+                    request.getMethod(), request.getRequestURI(), handler, stats.getStatements(), queryBudget,
+                    stats.getRows(), TimeUnit.NANOSECONDS.toMillis(stats.getNanos()));
+        }
+    }
+}
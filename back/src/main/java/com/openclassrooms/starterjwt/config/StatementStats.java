@@ -0,0 +1,49 @@
+package com.openclassrooms.starterjwt.config;
+
+/**
+ * JDBC work done on behalf of the HTTP request bound to the current thread.
+ */
+final class StatementStats {
+    private static final ThreadLocal<StatementStats> CURRENT = new ThreadLocal<>();
+
+    private int statements;
+
+    private long rows;
+
+    private long nanos;
+
+    static StatementStats begin() {
+        StatementStats stats = new StatementStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    static StatementStats current() {
+        return CURRENT.get();
+    }
+
+    void statement(long elapsedNanos) {
+        statements++;
+        nanos += elapsedNanos;
+    }
+
+    void rows(long count) {
+        rows += count;
+    }
+
+    int getStatements() {
+        return statements;
+    }
+
+    long getRows() {
+        return rows;
+    }
+
+    long getNanos() {
+        return nanos;
+    }
+}
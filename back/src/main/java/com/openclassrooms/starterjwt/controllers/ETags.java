@@ -0,0 +1,28 @@
+package com.openclassrooms.starterjwt.controllers;
+
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * Validators for conditional GETs. Returning a 200 ResponseEntity carrying them is enough: Spring
+ * answers 304 without a body when If-None-Match or If-Modified-Since still match.
+ */
+final class ETags {
+    private ETags() {
+    }
+
+    static String of(Object... parts) {
+        String joined = Arrays.stream(parts).map(String::valueOf).collect(Collectors.joining(":"));
+        return "\"" + DigestUtils.md5DigestAsHex(joined.getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    static ZonedDateTime lastModified(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault());
+    }
+}
@@ -2,29 +2,54 @@ package com.openclassrooms.starterjwt.controllers;
 
 
 import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.dto.SessionSummary;
+import com.openclassrooms.starterjwt.exception.ServiceUnavailableException;
 import com.openclassrooms.starterjwt.mapper.SessionMapper;
 import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.payload.request.ParticipationRequest;
+import com.openclassrooms.starterjwt.payload.request.SessionCursor;
+import com.openclassrooms.starterjwt.payload.response.MessageResponse;
+import com.openclassrooms.starterjwt.payload.response.SessionPageResponse;
+import com.openclassrooms.starterjwt.services.ParticipationStatus;
+import com.openclassrooms.starterjwt.services.SeatAvailabilityBroadcaster;
+import com.openclassrooms.starterjwt.services.SessionScheduleCache;
 import com.openclassrooms.starterjwt.services.SessionService;
-import lombok.extern.log4j.Log4j2;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import javax.validation.Valid;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.stream.Collectors;
 
 @CrossOrigin(origins = "*", maxAge = 3600)
 @RestController
 @RequestMapping("/api/session")
-@Log4j2
 public class SessionController {
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_CALENDAR_DAYS = 42;
+    private static final int MAX_BULK_SIZE = 500;
+
     private final SessionMapper sessionMapper;
     private final SessionService sessionService;
+    private final SessionScheduleCache sessionScheduleCache;
+    private final SeatAvailabilityBroadcaster seatAvailabilityBroadcaster;
 
 
     public SessionController(SessionService sessionService,
-                             SessionMapper sessionMapper) {
+                             SessionMapper sessionMapper,
+                             SessionScheduleCache sessionScheduleCache,
+                             SeatAvailabilityBroadcaster seatAvailabilityBroadcaster) {
         this.sessionMapper = sessionMapper;
         this.sessionService = sessionService;
+        this.sessionScheduleCache = sessionScheduleCache;
+        this.seatAvailabilityBroadcaster = seatAvailabilityBroadcaster;
     }
 
     @GetMapping("/{id}")
@@ -36,7 +61,12 @@ public class SessionController {
                 return ResponseEntity.notFound().build();
             }
 
-            return ResponseEntity.ok().body(this.sessionMapper.toDto(session));
+            // Sign-ups do not touch updatedAt, the participants are part of the tag
+            SessionDto sessionDto = this.sessionMapper.toDto(session);
+            return ResponseEntity.ok()
+                    .eTag(ETags.of(sessionDto.getId(), sessionDto.getUpdatedAt(), sessionDto.getUsers()))
+                    .lastModified(this.sessionScheduleCache.lastModified(sessionDto.getId()))
+                    .body(sessionDto);
         } catch (NumberFormatException e) {
             return ResponseEntity.badRequest().build();
         }
@@ -44,18 +74,89 @@ public class SessionController {
 
     @GetMapping()
     public ResponseEntity<?> findAll() {
-        List<Session> sessions = this.sessionService.findAll();
+        SessionScheduleCache.Snapshot snapshot = this.sessionScheduleCache.get();
+
+        return ResponseEntity.ok()
+                .eTag(snapshot.getETag())
+                .lastModified(snapshot.getLastModified())
+                .body(snapshot.getSessions());
+    }
+
+    @GetMapping(params = "size")
+    public ResponseEntity<?> findPage(@RequestParam("size") int size,
+                                      @RequestParam(value = "page", defaultValue = "0") int page,
+                                      @RequestParam(value = "cursor", required = false) String cursor) {
+        if (size < 1 || size > MAX_PAGE_SIZE || page < 0) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        try {
+            List<Session> sessions;
+            if (cursor == null) {
+                sessions = this.sessionService.findPage(page, size);
+            } else {
+                SessionCursor after = SessionCursor.decode(cursor);
+                sessions = this.sessionService.findAfter(after.getDate(), after.getId(), size);
+            }
+
+            String nextCursor = sessions.size() == size
+                    ? SessionCursor.of(sessions.get(sessions.size() - 1)).encode()
+                    : null;
+
+            return ResponseEntity.ok().body(new SessionPageResponse<>(this.sessionMapper.toDto(sessions), nextCursor));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping(params = {"from", "to"})
+    public ResponseEntity<?> findCalendar(@RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                          @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        if (to.isBefore(from) || ChronoUnit.DAYS.between(from, to) >= MAX_CALENDAR_DAYS) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        return ResponseEntity.ok().body(this.sessionService.findCalendar(from, to));
+    }
+
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream() {
+        return this.seatAvailabilityBroadcaster.subscribe();
+    }
+
+    @GetMapping("/summary")
+    public ResponseEntity<?> findSummaries(@RequestParam(value = "size", defaultValue = "20") int size,
+                                           @RequestParam(value = "page", defaultValue = "0") int page,
+                                           @RequestParam(value = "cursor", required = false) String cursor) {
+        if (size < 1 || size > MAX_PAGE_SIZE || page < 0) {
+            return ResponseEntity.badRequest().build();
+        }
 
-        return ResponseEntity.ok().body(this.sessionMapper.toDto(sessions));
+        try {
+            List<SessionSummary> summaries;
+            if (cursor == null) {
+                summaries = this.sessionService.findSummaries(page, size);
+            } else {
+                SessionCursor after = SessionCursor.decode(cursor);
+                summaries = this.sessionService.findSummariesAfter(after.getDate(), after.getId(), size);
+            }
+
+            String nextCursor = null;
+            if (summaries.size() == size) {
+                SessionSummary last = summaries.get(summaries.size() - 1);
+                nextCursor = new SessionCursor(last.getDate(), last.getId()).encode();
+            }
+
+            return ResponseEntity.ok().body(new SessionPageResponse<>(summaries, nextCursor));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @PostMapping()
     public ResponseEntity<?> create(@Valid @RequestBody SessionDto sessionDto) {
-        log.info(sessionDto);
-
         Session session = this.sessionService.create(this.sessionMapper.toEntity(sessionDto));
 
-        log.info(session);
         return ResponseEntity.ok().body(this.sessionMapper.toDto(session));
     }
 
@@ -73,9 +174,7 @@ public class SessionController {
     @DeleteMapping("{id}")
     public ResponseEntity<?> save(@PathVariable("id") String id) {
         try {
-            Session session = this.sessionService.getById(Long.valueOf(id));
-
-            if (session == null) {
+            if (!this.sessionService.exists(Long.valueOf(id))) {
                 return ResponseEntity.notFound().build();
             }
 
@@ -89,14 +188,39 @@ public class SessionController {
     @PostMapping("{id}/participate/{userId}")
     public ResponseEntity<?> participate(@PathVariable("id") String id, @PathVariable("userId") String userId) {
         try {
-            this.sessionService.participate(Long.parseLong(id), Long.parseLong(userId));
+            ParticipationStatus status = this.sessionService.participate(Long.parseLong(id), Long.parseLong(userId));
 
+            if (status == ParticipationStatus.WAITLISTED) {
+                return ResponseEntity.accepted().build();
+            }
             return ResponseEntity.ok().build();
         } catch (NumberFormatException e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
+    @PostMapping("/participate")
+    public ResponseEntity<?> participateAll(@RequestBody List<ParticipationRequest> participations) {
+        if (participations.isEmpty() || participations.size() > MAX_BULK_SIZE
+                || participations.stream().anyMatch(p -> p == null || p.getSessionId() == null || p.getUserId() == null)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        return ResponseEntity.ok().body(this.sessionService.participateAll(participations));
+    }
+
+    @PostMapping("{id}/participate")
+    public ResponseEntity<?> participateAll(@PathVariable("id") String id, @RequestBody List<Long> userIds) {
+        try {
+            Long sessionId = Long.valueOf(id);
+            return participateAll(userIds.stream()
+                    .map(userId -> new ParticipationRequest(sessionId, userId))
+                    .collect(Collectors.toList()));
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @DeleteMapping("{id}/participate/{userId}")
     public ResponseEntity<?> noLongerParticipate(@PathVariable("id") String id, @PathVariable("userId") String userId) {
         try {
@@ -107,4 +231,12 @@ public class SessionController {
             return ResponseEntity.badRequest().build();
         }
     }
+
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<MessageResponse> handleServiceUnavailable(ServiceUnavailableException e) {
+        return ResponseEntity
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(new MessageResponse("Error: Too many live connections, please retry later"));
+    }
 }
@@ -5,7 +5,9 @@ import com.openclassrooms.starterjwt.models.Teacher;
 import com.openclassrooms.starterjwt.services.TeacherService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Objects;
 
 @CrossOrigin(origins = "*", maxAge = 3600)
 @RestController
@@ -30,7 +32,11 @@ public class TeacherController {
                 return ResponseEntity.notFound().build();
             }
 
-            return ResponseEntity.ok().body(this.teacherMapper.toDto(teacher));
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(ETags.of(teacher.getId(), teacher.getUpdatedAt()));
+            if (teacher.getUpdatedAt() != null) {
+                response.lastModified(ETags.lastModified(teacher.getUpdatedAt()));
+            }
+            return response.body(this.teacherMapper.toDto(teacher));
         } catch (NumberFormatException e) {
             return ResponseEntity.badRequest().build();
         }
@@ -40,6 +46,15 @@ public class TeacherController {
     public ResponseEntity<?> findAll() {
         List<Teacher> teachers = this.teacherService.findAll();
 
-        return ResponseEntity.ok().body(this.teacherMapper.toDto(teachers));
+        // Removing a teacher leaves the latest updatedAt unchanged, only the tag covers it
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(ETags.of(teachers.stream()
+                .map(teacher -> teacher.getId() + "@" + teacher.getUpdatedAt())
+                .toArray()));
+        teachers.stream()
+                .map(Teacher::getUpdatedAt)
+                .filter(Objects::nonNull)
+                .max(Comparator.naturalOrder())
+                .ifPresent(updatedAt -> response.lastModified(ETags.lastModified(updatedAt)));
+        return response.body(this.teacherMapper.toDto(teachers));
     }
 }
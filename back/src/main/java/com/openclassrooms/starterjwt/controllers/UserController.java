@@ -2,6 +2,7 @@ package com.openclassrooms.starterjwt.controllers;
 
 import com.openclassrooms.starterjwt.mapper.UserMapper;
 import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.services.SessionService;
 import com.openclassrooms.starterjwt.services.UserService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -15,14 +16,19 @@ import java.util.Objects;
 @RestController
 @RequestMapping("/api/user")
 public class UserController {
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final UserMapper userMapper;
     private final UserService userService;
+    private final SessionService sessionService;
 
 
     public UserController(UserService userService,
-                             UserMapper userMapper) {
+                             UserMapper userMapper,
+                             SessionService sessionService) {
         this.userMapper = userMapper;
         this.userService = userService;
+        this.sessionService = sessionService;
     }
 
     @GetMapping("/{id}")
@@ -40,6 +46,37 @@ public class UserController {
         }
     }
 
+    @GetMapping("/{id}/sessions")
+    public ResponseEntity<?> findSessions(@PathVariable("id") String id,
+                                          @RequestParam(value = "when", defaultValue = "upcoming") String when,
+                                          @RequestParam(value = "size", defaultValue = "20") int size,
+                                          @RequestParam(value = "page", defaultValue = "0") int page) {
+        if (size < 1 || size > MAX_PAGE_SIZE || page < 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (!"upcoming".equals(when) && !"past".equals(when)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        try {
+            User user = this.userService.findById(Long.valueOf(id));
+
+            if (user == null) {
+                return ResponseEntity.notFound().build();
+            }
+
+            // Bookings are private to their member
+            if (!isAuthenticatedAs(user)) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+            }
+
+            return ResponseEntity.ok().body(
+                    this.sessionService.findSummariesByUser(user.getId(), "upcoming".equals(when), page, size));
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @DeleteMapping("{id}")
     public ResponseEntity<?> save(@PathVariable("id") String id) {
         try {
@@ -49,9 +86,7 @@ public class UserController {
                 return ResponseEntity.notFound().build();
             }
 
-            UserDetails userDetails = (UserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-
-            if(!Objects.equals(userDetails.getUsername(), user.getEmail())) {
+            if(!isAuthenticatedAs(user)) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
             }
 
@@ -61,4 +96,9 @@ public class UserController {
             return ResponseEntity.badRequest().build();
         }
     }
+
+    private static boolean isAuthenticatedAs(User user) {
+        UserDetails userDetails = (UserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        return Objects.equals(userDetails.getUsername(), user.getEmail());
+    }
 }
@@ -9,6 +9,7 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
 import java.time.LocalDateTime;
@@ -16,7 +17,7 @@ import java.util.Date;
 import java.util.List;
 
 @Entity
-@Table(name = "SESSIONS")
+@Table(name = "SESSIONS", indexes = @Index(name = "IDX_SESSIONS_DATE_ID", columnList = "date, id"))
 @EntityListeners(AuditingEntityListener.class)
 @Data
 @Accessors(chain = true)
@@ -41,15 +42,26 @@ public class Session {
     @Size(max = 2500)
     private String description;
 
+    // No limit when null
+    @Min(1)
+    private Integer capacity;
+
+    // Maintained by SessionRepository in the same transaction as the PARTICIPATE rows
+    @Column(name = "seats_taken", nullable = false, updatable = false)
+    private int seatsTaken;
+
     @OneToOne
     @JoinColumn(name = "teacher_id", referencedColumnName = "id")
     private Teacher teacher;
 
-    @ManyToMany(fetch = FetchType.EAGER)
+    @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(
             name = "PARTICIPATE",
             joinColumns = @JoinColumn( name = "session_id" ),
-            inverseJoinColumns = @JoinColumn( name = "user_id" ) )
+            inverseJoinColumns = @JoinColumn( name = "user_id" ),
+            uniqueConstraints = @UniqueConstraint(name = "UK_PARTICIPATE_SESSION_USER", columnNames = {"session_id", "user_id"}),
+            indexes = @Index(name = "IDX_PARTICIPATE_USER", columnList = "user_id") )
+    @ToString.Exclude
     private List<User> users;
 
     @CreatedDate
@@ -2,6 +2,9 @@ package com.openclassrooms.starterjwt.models;
 
 import lombok.*;
 import lombok.experimental.Accessors;
+import com.openclassrooms.starterjwt.config.EntityCacheConfig;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.UpdateTimestamp;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -14,6 +17,8 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "TEACHERS")
 @EntityListeners(AuditingEntityListener.class)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = EntityCacheConfig.TEACHERS_REGION)
 @Data
 @Accessors(chain = true)
 @EqualsAndHashCode(of = {"id"})
@@ -0,0 +1,32 @@
+package com.openclassrooms.starterjwt.models;
+
+import lombok.*;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "WAITLIST",
+        uniqueConstraints = @UniqueConstraint(name = "UK_WAITLIST_SESSION_USER", columnNames = {"session_id", "user_id"}),
+        indexes = @Index(name = "IDX_WAITLIST_SESSION_ID", columnList = "session_id, id"))
+@Data
+@EqualsAndHashCode(of = {"id"})
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class WaitlistEntry {
+    // Also gives the FIFO order within a session
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "session_id", nullable = false)
+    private Long sessionId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,18 @@
+package com.openclassrooms.starterjwt.payload.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotNull;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ParticipationRequest {
+    @NotNull
+    private Long sessionId;
+
+    @NotNull
+    private Long userId;
+}
@@ -0,0 +1,38 @@
+package com.openclassrooms.starterjwt.payload.request;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+import com.openclassrooms.starterjwt.models.Session;
+
+import lombok.Value;
+
+/**
+ * Opaque position in the (date, id) ordering of sessions, exchanged with clients as a base64 string.
+ */
+@Value
+public class SessionCursor {
+  Date date;
+
+  Long id;
+
+  public static SessionCursor of(Session session) {
+    return new SessionCursor(session.getDate(), session.getId());
+  }
+
+  public static SessionCursor decode(String cursor) {
+    String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+    int separator = decoded.indexOf(':');
+    if (separator < 0) {
+      throw new IllegalArgumentException("Invalid session cursor: " + cursor);
+    }
+    return new SessionCursor(new Date(Long.parseLong(decoded.substring(0, separator))),
+        Long.valueOf(decoded.substring(separator + 1)));
+  }
+
+  public String encode() {
+    String raw = date.getTime() + ":" + id;
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,15 @@
+package com.openclassrooms.starterjwt.payload.response;
+
+import com.openclassrooms.starterjwt.services.ParticipationStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class ParticipationResult {
+  private Long sessionId;
+
+  private Long userId;
+
+  private ParticipationStatus status;
+}
@@ -0,0 +1,14 @@
+package com.openclassrooms.starterjwt.payload.response;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class SessionPageResponse<T> {
+  private List<T> items;
+
+  private String nextCursor;
+}
@@ -0,0 +1,120 @@
+package com.openclassrooms.starterjwt.repository;
+
+import com.openclassrooms.starterjwt.payload.request.ParticipationRequest;
+import com.openclassrooms.starterjwt.services.ParticipationStatus;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Set-based reads and batched writes used by bulk registrations, which would otherwise cost a few
+ * statements per participant through {@link SessionRepository}.
+ */
+@Repository
+public class ParticipationBatchRepository {
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public ParticipationBatchRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Locks the rows of the given sessions, in id order, and returns their free seats. A null value
+     * means no limit; unknown sessions are absent.
+     */
+    public Map<Long, Integer> lockFreeSeats(Collection<Long> sessionIds) {
+        Map<Long, Integer> freeSeats = new LinkedHashMap<>();
+        this.jdbcTemplate.query(
+                "SELECT id, capacity, seats_taken FROM SESSIONS WHERE id IN (:ids) ORDER BY id FOR UPDATE",
+                new MapSqlParameterSource("ids", sessionIds),
+                rs -> {
+                    int capacity = rs.getInt("capacity");
+                    freeSeats.put(rs.getLong("id"),
+                            rs.wasNull() ? null : Math.max(0, capacity - rs.getInt("seats_taken")));
+                });
+        return freeSeats;
+    }
+
+    public Set<Long> findExistingUserIds(Collection<Long> userIds) {
+        return new HashSet<>(this.jdbcTemplate.queryForList("SELECT id FROM USERS WHERE id IN (:ids)",
+                new MapSqlParameterSource("ids", userIds), Long.class));
+    }
+
+    /**
+     * Participations and waitlist entries among the given sessions and users, the waitlist entries
+     * last and in arrival order.
+     */
+    public Map<ParticipationRequest, ParticipationStatus> findRegistrations(Collection<Long> sessionIds,
+                                                                            Collection<Long> userIds) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("sessionIds", sessionIds)
+                .addValue("userIds", userIds);
+        Map<ParticipationRequest, ParticipationStatus> registrations = new LinkedHashMap<>();
+        this.jdbcTemplate.query("SELECT session_id, user_id, 0 AS waiting, 0 AS id FROM PARTICIPATE "
+                        + "WHERE session_id IN (:sessionIds) AND user_id IN (:userIds) "
+                        + "UNION ALL SELECT session_id, user_id, 1 AS waiting, id FROM WAITLIST "
+                        + "WHERE session_id IN (:sessionIds) AND user_id IN (:userIds) "
+                        + "ORDER BY waiting, id",
+                parameters,
+                rs -> {
+                    registrations.put(new ParticipationRequest(rs.getLong("session_id"), rs.getLong("user_id")),
+                            rs.getInt("waiting") == 0 ? ParticipationStatus.PARTICIPATING : ParticipationStatus.WAITLISTED);
+                });
+        return registrations;
+    }
+
+    /**
+     * Size of the waitlist of the given sessions, sessions nobody waits for are absent.
+     */
+    public Map<Long, Integer> countWaiting(Collection<Long> sessionIds) {
+        Map<Long, Integer> waiting = new HashMap<>();
+        this.jdbcTemplate.query("SELECT session_id, COUNT(*) AS waiting FROM WAITLIST "
+                        + "WHERE session_id IN (:ids) GROUP BY session_id",
+                new MapSqlParameterSource("ids", sessionIds),
+                rs -> {
+                    waiting.put(rs.getLong("session_id"), rs.getInt("waiting"));
+                });
+        return waiting;
+    }
+
+    public void addParticipants(List<ParticipationRequest> participations) {
+        this.jdbcTemplate.batchUpdate("INSERT INTO PARTICIPATE (session_id, user_id) VALUES (:sessionId, :userId)",
+                toParameters(participations));
+    }
+
+    public void addToWaitlist(List<ParticipationRequest> participations) {
+        this.jdbcTemplate.batchUpdate(
+                "INSERT INTO WAITLIST (session_id, user_id, created_at) VALUES (:sessionId, :userId, CURRENT_TIMESTAMP)",
+                toParameters(participations));
+    }
+
+    public void removeFromWaitlist(List<ParticipationRequest> participations) {
+        this.jdbcTemplate.batchUpdate("DELETE FROM WAITLIST WHERE session_id = :sessionId AND user_id = :userId",
+                toParameters(participations));
+    }
+
+    public void takeSeats(Map<Long, Integer> seatsBySession) {
+        this.jdbcTemplate.batchUpdate("UPDATE SESSIONS SET seats_taken = seats_taken + :seats WHERE id = :id",
+                seatsBySession.entrySet().stream()
+                        .map(entry -> new MapSqlParameterSource()
+                                .addValue("id", entry.getKey())
+                                .addValue("seats", entry.getValue()))
+                        .toArray(MapSqlParameterSource[]::new));
+    }
+
+    private static MapSqlParameterSource[] toParameters(List<ParticipationRequest> participations) {
+        return participations.stream()
+                .map(participation -> new MapSqlParameterSource()
+                        .addValue("sessionId", participation.getSessionId())
+                        .addValue("userId", participation.getUserId()))
+                .toArray(MapSqlParameterSource[]::new);
+    }
+}
@@ -1,9 +1,107 @@
 package com.openclassrooms.starterjwt.repository;
 
+import com.openclassrooms.starterjwt.dto.SeatAvailability;
+import com.openclassrooms.starterjwt.dto.SessionSummary;
 import com.openclassrooms.starterjwt.models.Session;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface SessionRepository  extends JpaRepository<Session, Long> {
+    @EntityGraph(attributePaths = {"users", "teacher"})
+    Optional<Session> findWithUsersById(Long id);
+
+    @EntityGraph(attributePaths = {"users", "teacher"})
+    @Query("SELECT DISTINCT s FROM Session s")
+    List<Session> findAllWithUsers();
+
+    @EntityGraph(attributePaths = {"users", "teacher"})
+    List<Session> findDistinctByIdIn(Collection<Long> ids);
+
+    List<Session> findAllByOrderByDateAscIdAsc(Pageable pageable);
+
+    @Query("SELECT s FROM Session s WHERE s.date > :date OR (s.date = :date AND s.id > :id) ORDER BY s.date ASC, s.id ASC")
+    List<Session> findAfter(@Param("date") Date date, @Param("id") Long id, Pageable pageable);
+
+    @Query("SELECT new com.openclassrooms.starterjwt.dto.SessionSummary(s.id, s.name, s.date, t.id, SIZE(s.users)) "
+            + "FROM Session s LEFT JOIN s.teacher t ORDER BY s.date ASC, s.id ASC")
+    List<SessionSummary> findSummaries(Pageable pageable);
+
+    @Query("SELECT new com.openclassrooms.starterjwt.dto.SessionSummary(s.id, s.name, s.date, t.id, SIZE(s.users)) "
+            + "FROM Session s LEFT JOIN s.teacher t "
+            + "WHERE s.date > :date OR (s.date = :date AND s.id > :id) ORDER BY s.date ASC, s.id ASC")
+    List<SessionSummary> findSummariesAfter(@Param("date") Date date, @Param("id") Long id, Pageable pageable);
+
+    @Query("SELECT new com.openclassrooms.starterjwt.dto.SeatAvailability(s.id, s.seatsTaken, s.capacity) "
+            + "FROM Session s WHERE s.id IN :ids")
+    List<SeatAvailability> findSeatAvailability(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT new com.openclassrooms.starterjwt.dto.SessionSummary(s.id, s.name, s.date, t.id, SIZE(s.users)) "
+            + "FROM Session s LEFT JOIN s.teacher t "
+            + "WHERE s.date >= :from AND s.date < :to ORDER BY s.date ASC, s.id ASC")
+    List<SessionSummary> findSummariesBetween(@Param("from") Date from, @Param("to") Date to);
+
+    @Query("SELECT new com.openclassrooms.starterjwt.dto.SessionSummary(s.id, s.name, s.date, t.id, SIZE(s.users)) "
+            + "FROM Session s JOIN s.users u LEFT JOIN s.teacher t "
+            + "WHERE u.id = :userId AND s.date >= :from ORDER BY s.date ASC, s.id ASC")
+    List<SessionSummary> findUpcomingSummariesByUser(@Param("userId") Long userId, @Param("from") Date from, Pageable pageable);
+
+    @Query("SELECT new com.openclassrooms.starterjwt.dto.SessionSummary(s.id, s.name, s.date, t.id, SIZE(s.users)) "
+            + "FROM Session s JOIN s.users u LEFT JOIN s.teacher t "
+            + "WHERE u.id = :userId AND s.date < :before ORDER BY s.date DESC, s.id DESC")
+    List<SessionSummary> findPastSummariesByUser(@Param("userId") Long userId, @Param("before") Date before, Pageable pageable);
+
+    // The native writes below name the tables they touch, otherwise Hibernate would clear every
+    // second-level cache region, the teachers included, each time one of them runs
+    @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.NATIVE_SPACES, value = "PARTICIPATE"))
+    @Modifying
+    @Query(value = "INSERT INTO PARTICIPATE (session_id, user_id) SELECT :sessionId, :userId FROM DUAL "
+            + "WHERE NOT EXISTS (SELECT 1 FROM PARTICIPATE WHERE session_id = :sessionId AND user_id = :userId)",
+            nativeQuery = true)
+    int addParticipant(@Param("sessionId") Long sessionId, @Param("userId") Long userId);
+
+    @Query("SELECT CASE WHEN COUNT(u) > 0 THEN true ELSE false END FROM Session s JOIN s.users u "
+            + "WHERE s.id = :sessionId AND u.id = :userId")
+    boolean isParticipant(@Param("sessionId") Long sessionId, @Param("userId") Long userId);
+
+    // Only locks the row of this session, sign-ups to other sessions are not affected
+    @Query(value = "SELECT id FROM SESSIONS WHERE id = :id FOR UPDATE", nativeQuery = true)
+    Long lockById(@Param("id") Long id);
+
+    // Never ahead of the waitlist, its head is seated when a seat is freed
+    @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.NATIVE_SPACES, value = "SESSIONS"))
+    @Modifying
+    @Query(value = "UPDATE SESSIONS SET seats_taken = seats_taken + 1 "
+            + "WHERE id = :id AND (capacity IS NULL OR seats_taken < capacity) "
+            + "AND NOT EXISTS (SELECT 1 FROM WAITLIST WHERE session_id = :id)", nativeQuery = true)
+    int takeSeat(@Param("id") Long id);
+
+    @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.NATIVE_SPACES, value = "SESSIONS"))
+    @Modifying
+    @Query(value = "UPDATE SESSIONS SET seats_taken = seats_taken - 1 WHERE id = :id AND seats_taken > 0", nativeQuery = true)
+    int releaseSeat(@Param("id") Long id);
+
+    @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.NATIVE_SPACES, value = "SESSIONS"))
+    // Writes the pending roster first and detaches the sessions, so they are read back with the new count
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE SESSIONS SET seats_taken = (SELECT COUNT(*) FROM PARTICIPATE WHERE session_id = :id) WHERE id = :id",
+            nativeQuery = true)
+    int recountSeatsTaken(@Param("id") Long id);
+
+    @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.NATIVE_SPACES, value = "PARTICIPATE"))
+    @Modifying
+    @Query(value = "DELETE FROM PARTICIPATE WHERE session_id = :sessionId AND user_id = :userId", nativeQuery = true)
+    int removeParticipant(@Param("sessionId") Long sessionId, @Param("userId") Long userId);
 }
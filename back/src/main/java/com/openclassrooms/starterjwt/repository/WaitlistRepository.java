@@ -0,0 +1,29 @@
+package com.openclassrooms.starterjwt.repository;
+
+import com.openclassrooms.starterjwt.models.WaitlistEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.QueryHint;
+import java.util.Optional;
+
+@Repository
+public interface WaitlistRepository extends JpaRepository<WaitlistEntry, Long> {
+    Optional<WaitlistEntry> findFirstBySessionIdOrderByIdAsc(Long sessionId);
+
+    @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.NATIVE_SPACES, value = "WAITLIST"))
+    @Modifying
+    @Query(value = "INSERT INTO WAITLIST (session_id, user_id, created_at) SELECT :sessionId, :userId, CURRENT_TIMESTAMP FROM DUAL "
+            + "WHERE NOT EXISTS (SELECT 1 FROM WAITLIST WHERE session_id = :sessionId AND user_id = :userId)",
+            nativeQuery = true)
+    int addToWaitlist(@Param("sessionId") Long sessionId, @Param("userId") Long userId);
+
+    @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.NATIVE_SPACES, value = "WAITLIST"))
+    @Modifying
+    @Query(value = "DELETE FROM WAITLIST WHERE session_id = :sessionId AND user_id = :userId", nativeQuery = true)
+    int removeFromWaitlist(@Param("sessionId") Long sessionId, @Param("userId") Long userId);
+}
@@ -17,14 +17,28 @@ import org.springframework.security.web.authentication.WebAuthenticationDetailsS
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
-import com.openclassrooms.starterjwt.security.services.UserDetailsServiceImpl;
+import com.openclassrooms.starterjwt.security.services.UserDetailsCache;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+
+import io.jsonwebtoken.Claims;
 
 public class AuthTokenFilter extends OncePerRequestFilter {
+  // A browser EventSource cannot send headers, so the seat stream also takes the token as a parameter
+  static final String STREAM_PATH = "/api/session/stream";
+
+  static final String TOKEN_PARAMETER = "access_token";
+
   @Autowired
   private JwtUtils jwtUtils;
 
   @Autowired
-  private UserDetailsServiceImpl userDetailsService;
+  private UserDetailsCache userDetailsCache;
+
+  @Autowired
+  private VerifiedTokenCache verifiedTokenCache;
+
+  @Autowired
+  private TokenDenyList tokenDenyList;
 
   private static final Logger logger = LoggerFactory.getLogger(AuthTokenFilter.class);
 
@@ -33,18 +47,20 @@ public class AuthTokenFilter extends OncePerRequestFilter {
       throws ServletException, IOException {
     try {
       String jwt = parseJwt(request);
-      if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-        String username = jwtUtils.getUserNameFromJwtToken(jwt);
-
-        UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-        UsernamePasswordAuthenticationToken authentication =
-            new UsernamePasswordAuthenticationToken(
-                userDetails,
-                null,
-                userDetails.getAuthorities());
-        authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-
-        SecurityContextHolder.getContext().setAuthentication(authentication);
+      JwtValidationResult result = jwt != null ? verifiedTokenCache.validate(jwt) : null;
+      if (result != null && result.isValid()) {
+        UserDetails userDetails = resolveUserDetails(result.getClaims());
+
+        if (userDetails != null) {
+          UsernamePasswordAuthenticationToken authentication =
+              new UsernamePasswordAuthenticationToken(
+                  userDetails,
+                  null,
+                  userDetails.getAuthorities());
+          authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+
+          SecurityContextHolder.getContext().setAuthentication(authentication);
+        }
       }
     } catch (Exception e) {
       logger.error("Cannot set user authentication: {}", e);
@@ -53,6 +69,20 @@ public class AuthTokenFilter extends OncePerRequestFilter {
     filterChain.doFilter(request, response);
   }
 
+  private UserDetails resolveUserDetails(Claims claims) {
+    if (!jwtUtils.hasUserDetailsClaims(claims)) {
+      return userDetailsCache.loadUserByUsername(claims.getSubject());
+    }
+
+    UserDetailsImpl userDetails = jwtUtils.getUserDetailsFromClaims(claims);
+    if (tokenDenyList.isRevoked(userDetails.getId(), claims.getIssuedAt())) {
+      logger.warn("Rejected revoked JWT for user {}", userDetails.getId());
+      return null;
+    }
+
+    return userDetails;
+  }
+
   private String parseJwt(HttpServletRequest request) {
     String headerAuth = request.getHeader("Authorization");
 
@@ -60,6 +90,12 @@ public class AuthTokenFilter extends OncePerRequestFilter {
       return headerAuth.substring(7, headerAuth.length());
     }
 
+    String parameterAuth = request.getParameter(TOKEN_PARAMETER);
+    if (StringUtils.hasText(parameterAuth) && "GET".equals(request.getMethod())
+        && (request.getContextPath() + STREAM_PATH).equals(request.getRequestURI())) {
+      return parameterAuth;
+    }
+
     return null;
   }
 }
@@ -1,7 +1,10 @@
 package com.openclassrooms.starterjwt.security.jwt;
 
+import java.security.Key;
 import java.util.Date;
 
+import javax.crypto.spec.SecretKeySpec;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -11,6 +14,7 @@ import org.springframework.stereotype.Component;
 import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
 
 import io.jsonwebtoken.*;
+import io.jsonwebtoken.impl.TextCodec;
 
 @Component
 public class JwtUtils {
@@ -22,38 +26,105 @@ public class JwtUtils {
   @Value("${oc.app.jwtExpirationMs}")
   private int jwtExpirationMs;
 
+  @Value("${oc.app.jwtEmbedClaims:false}")
+  private boolean jwtEmbedClaims;
+
+  static final String CLAIM_ID = "id";
+  static final String CLAIM_FIRST_NAME = "firstName";
+  static final String CLAIM_LAST_NAME = "lastName";
+  static final String CLAIM_ADMIN = "admin";
+
+  private volatile Key signingKey;
+
+  private volatile JwtParser parser;
+
   public String generateJwtToken(Authentication authentication) {
 
     UserDetailsImpl userPrincipal = (UserDetailsImpl) authentication.getPrincipal();
 
-    return Jwts.builder()
+    JwtBuilder builder = Jwts.builder()
         .setSubject((userPrincipal.getUsername()))
         .setIssuedAt(new Date())
-        .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
-        .signWith(SignatureAlgorithm.HS512, jwtSecret)
+        .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs));
+
+    if (jwtEmbedClaims) {
+      builder
+          .claim(CLAIM_ID, userPrincipal.getId())
+          .claim(CLAIM_FIRST_NAME, userPrincipal.getFirstName())
+          .claim(CLAIM_LAST_NAME, userPrincipal.getLastName())
+          .claim(CLAIM_ADMIN, Boolean.TRUE.equals(userPrincipal.getAdmin()));
+    }
+
+    return builder
+        .signWith(SignatureAlgorithm.HS512, signingKey())
         .compact();
   }
 
   public String getUserNameFromJwtToken(String token) {
-    return Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(token).getBody().getSubject();
+    return getClaimsFromJwtToken(token).getSubject();
   }
 
-  public boolean validateJwtToken(String authToken) {
+  public Claims getClaimsFromJwtToken(String token) {
+    return parser().parseClaimsJws(token).getBody();
+  }
+
+  public boolean hasUserDetailsClaims(Claims claims) {
+    return claims.containsKey(CLAIM_ID);
+  }
+
+  public UserDetailsImpl getUserDetailsFromClaims(Claims claims) {
+    return UserDetailsImpl
+        .builder()
+        .id(claims.get(CLAIM_ID, Long.class))
+        .username(claims.getSubject())
+        .firstName(claims.get(CLAIM_FIRST_NAME, String.class))
+        .lastName(claims.get(CLAIM_LAST_NAME, String.class))
+        .admin(claims.get(CLAIM_ADMIN, Boolean.class))
+        .build();
+  }
+
+  public JwtValidationResult validate(String authToken) {
     try {
-      Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(authToken);
-      return true;
+      return JwtValidationResult.valid(parser().parseClaimsJws(authToken).getBody());
     } catch (SignatureException e) {
       logger.error("Invalid JWT signature: {}", e.getMessage());
+      return JwtValidationResult.invalid(JwtValidationResult.Reason.INVALID_SIGNATURE);
     } catch (MalformedJwtException e) {
       logger.error("Invalid JWT token: {}", e.getMessage());
+      return JwtValidationResult.invalid(JwtValidationResult.Reason.MALFORMED);
     } catch (ExpiredJwtException e) {
       logger.error("JWT token is expired: {}", e.getMessage());
+      return JwtValidationResult.invalid(JwtValidationResult.Reason.EXPIRED);
     } catch (UnsupportedJwtException e) {
       logger.error("JWT token is unsupported: {}", e.getMessage());
+      return JwtValidationResult.invalid(JwtValidationResult.Reason.UNSUPPORTED);
     } catch (IllegalArgumentException e) {
       logger.error("JWT claims string is empty: {}", e.getMessage());
+      return JwtValidationResult.invalid(JwtValidationResult.Reason.EMPTY);
     }
+  }
 
-    return false;
+  public boolean validateJwtToken(String authToken) {
+    return validate(authToken).isValid();
+  }
+
+  // The secret is injected after construction, so the key and parser are built on first use.
+  // A configured parser holds no per-call state and is shared between requests.
+  private Key signingKey() {
+    Key key = signingKey;
+    if (key == null) {
+      key = new SecretKeySpec(TextCodec.BASE64.decode(jwtSecret), SignatureAlgorithm.HS512.getJcaName());
+      signingKey = key;
+    }
+    return key;
+  }
+
+  private JwtParser parser() {
+    JwtParser jwtParser = parser;
+    if (jwtParser == null) {
+      jwtParser = Jwts.parser().setSigningKey(signingKey());
+      parser = jwtParser;
+    }
+    return jwtParser;
   }
 }
@@ -0,0 +1,46 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import io.jsonwebtoken.Claims;
+
+/**
+ * Outcome of a single parse of a JWT: the verified claims, or the reason the token was rejected.
+ */
+public final class JwtValidationResult {
+  public enum Reason {
+    VALID,
+    INVALID_SIGNATURE,
+    MALFORMED,
+    EXPIRED,
+    UNSUPPORTED,
+    EMPTY
+  }
+
+  private final Claims claims;
+
+  private final Reason reason;
+
+  private JwtValidationResult(Claims claims, Reason reason) {
+    this.claims = claims;
+    this.reason = reason;
+  }
+
+  public static JwtValidationResult valid(Claims claims) {
+    return new JwtValidationResult(claims, Reason.VALID);
+  }
+
+  public static JwtValidationResult invalid(Reason reason) {
+    return new JwtValidationResult(null, reason);
+  }
+
+  public boolean isValid() {
+    return reason == Reason.VALID;
+  }
+
+  public Claims getClaims() {
+    return claims;
+  }
+
+  public Reason getReason() {
+    return reason;
+  }
+}
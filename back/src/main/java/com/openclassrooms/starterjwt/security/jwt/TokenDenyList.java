@@ -0,0 +1,45 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Users whose claims-carrying tokens must no longer be trusted. An entry only needs to outlive the
+ * tokens issued before it, so it expires after the token lifetime.
+ */
+@Component
+public class TokenDenyList {
+  private final Cache<Long, Long> revokedAt;
+
+  public TokenDenyList(@Value("${oc.app.jwtExpirationMs}") long jwtExpirationMs,
+      @Value("${oc.app.tokenDenyListMaxSize:100000}") long maxSize) {
+    this.revokedAt = Caffeine.newBuilder()
+        .maximumSize(maxSize)
+        .expireAfterWrite(jwtExpirationMs, TimeUnit.MILLISECONDS)
+        .build();
+  }
+
+  public void revoke(Long userId) {
+    revokedAt.put(userId, System.currentTimeMillis());
+  }
+
+  public boolean isRevoked(Long userId, Date issuedAt) {
+    if (userId == null) {
+      return false;
+    }
+
+    Long revokedTime = revokedAt.getIfPresent(userId);
+    if (revokedTime == null) {
+      return false;
+    }
+
+    // iat has a one second resolution, so a token issued in the same second is treated as revoked
+    return issuedAt == null || issuedAt.getTime() <= revokedTime;
+  }
+}
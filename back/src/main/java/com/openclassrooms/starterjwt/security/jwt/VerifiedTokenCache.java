@@ -0,0 +1,99 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Claims of tokens whose signature has already been verified, keyed by the SHA-256 digest of the
+ * raw token and kept until the token expires. Any altered token has another digest, so it misses
+ * and goes through full verification.
+ */
+@Component
+public class VerifiedTokenCache {
+  static final String CACHE_NAME = "verifiedTokens";
+
+  private final JwtUtils jwtUtils;
+
+  private final Cache<String, Claims> cache;
+
+  public VerifiedTokenCache(JwtUtils jwtUtils,
+      MeterRegistry meterRegistry,
+      @Value("${oc.app.verifiedTokenCacheMaxSize:10000}") long maxSize) {
+    this.jwtUtils = jwtUtils;
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(maxSize)
+        .expireAfter(new UntilTokenExpiry())
+        .recordStats()
+        .build();
+
+    CaffeineCacheMetrics.monitor(meterRegistry, this.cache, CACHE_NAME);
+  }
+
+  public JwtValidationResult validate(String authToken) {
+    if (authToken == null || authToken.isEmpty()) {
+      return jwtUtils.validate(authToken);
+    }
+
+    String key = digest(authToken);
+    Claims claims = cache.getIfPresent(key);
+    if (claims != null) {
+      return JwtValidationResult.valid(claims);
+    }
+
+    JwtValidationResult result = jwtUtils.validate(authToken);
+    if (result.isValid()) {
+      cache.put(key, result.getClaims());
+    }
+    return result;
+  }
+
+  public CacheStats stats() {
+    return cache.stats();
+  }
+
+  private static String digest(String token) {
+    try {
+      MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+      return Base64.getEncoder().encodeToString(messageDigest.digest(token.getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+
+  private static class UntilTokenExpiry implements Expiry<String, Claims> {
+    @Override
+    public long expireAfterCreate(String key, Claims claims, long currentTime) {
+      Date expiration = claims.getExpiration();
+      if (expiration == null) {
+        return 0;
+      }
+      return TimeUnit.MILLISECONDS.toNanos(Math.max(0, expiration.getTime() - System.currentTimeMillis()));
+    }
+
+    @Override
+    public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+      return currentDuration;
+    }
+
+    @Override
+    public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+      return currentDuration;
+    }
+  }
+}
@@ -0,0 +1,55 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Principals resolved from a JWT subject, kept for a short time so that authenticated requests
+ * do not reload their user from the database on every call.
+ */
+@Component
+public class UserDetailsCache {
+  static final String CACHE_NAME = "principals";
+
+  private final UserDetailsServiceImpl userDetailsService;
+
+  private final Cache<String, UserDetailsImpl> cache;
+
+  public UserDetailsCache(UserDetailsServiceImpl userDetailsService,
+      MeterRegistry meterRegistry,
+      @Value("${oc.app.principalCacheMaxSize:10000}") long maxSize,
+      @Value("${oc.app.principalCacheTtlMs:60000}") long ttlMs) {
+    this.userDetailsService = userDetailsService;
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(maxSize)
+        .expireAfterWrite(ttlMs, TimeUnit.MILLISECONDS)
+        .recordStats()
+        .build();
+
+    CaffeineCacheMetrics.monitor(meterRegistry, this.cache, CACHE_NAME);
+  }
+
+  public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+    return cache.get(username, key -> (UserDetailsImpl) userDetailsService.loadUserByUsername(key));
+  }
+
+  public void evict(Long userId) {
+    cache.asMap().values().removeIf(user -> Objects.equals(user.getId(), userId));
+  }
+
+  public CacheStats stats() {
+    return cache.stats();
+  }
+}
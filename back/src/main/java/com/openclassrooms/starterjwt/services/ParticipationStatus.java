@@ -0,0 +1,9 @@
+package com.openclassrooms.starterjwt.services;
+
+public enum ParticipationStatus {
+    PARTICIPATING,
+    WAITLISTED,
+    // Only reported per item by bulk registrations, single sign-ups fail instead
+    ALREADY_REGISTERED,
+    NOT_FOUND
+}
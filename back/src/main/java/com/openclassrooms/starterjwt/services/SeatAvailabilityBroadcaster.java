@@ -0,0 +1,249 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.starterjwt.dto.SeatAvailability;
+import com.openclassrooms.starterjwt.exception.ServiceUnavailableException;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes the seat counts of sessions whose participants changed to every connected client. Changes
+ * are collected per session and flushed periodically, so a burst of sign-ups to the same session
+ * results in a single event, serialized once for all clients. The events are written by a small
+ * dedicated pool, one client at a time per thread, so a slow client only delays itself; a client
+ * that stops reading is disconnected once its backlog or its pending write exceeds the limits.
+ */
+@Component
+@Log4j2
+public class SeatAvailabilityBroadcaster {
+    static final String EVENT_NAME = "seats";
+
+    private final SessionRepository sessionRepository;
+
+    private final ObjectMapper objectMapper;
+
+    private final int maxConnections;
+
+    private final long timeoutMs;
+
+    private final long retryAfterSeconds;
+
+    private final long sendTimeoutMs;
+
+    private final int maxPendingEvents;
+
+    private final ThreadPoolExecutor sendExecutor;
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    // Reserved before the emitter is registered, so that the cap holds under concurrent subscriptions
+    private final AtomicInteger connections = new AtomicInteger();
+
+    private final Set<Long> changedSessionIds = ConcurrentHashMap.newKeySet();
+
+    public SeatAvailabilityBroadcaster(SessionRepository sessionRepository,
+                                       ObjectMapper objectMapper,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${oc.app.seatStreamMaxConnections:2000}") int maxConnections,
+                                       @Value("${oc.app.seatStreamTimeoutMs:1800000}") long timeoutMs,
+                                       @Value("${oc.app.seatStreamRetryAfterSeconds:5}") long retryAfterSeconds,
+                                       @Value("${oc.app.seatStreamSendThreads:4}") int sendThreads,
+                                       @Value("${oc.app.seatStreamSendTimeoutMs:5000}") long sendTimeoutMs,
+                                       @Value("${oc.app.seatStreamMaxPendingEvents:16}") int maxPendingEvents) {
+        this.sessionRepository = sessionRepository;
+        this.objectMapper = objectMapper;
+        this.maxConnections = maxConnections;
+        this.timeoutMs = timeoutMs;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.sendTimeoutMs = sendTimeoutMs;
+        this.maxPendingEvents = maxPendingEvents;
+
+        // Each client has at most one write queued or running, so the queue never exceeds the connections
+        AtomicInteger threadCount = new AtomicInteger();
+        this.sendExecutor = new ThreadPoolExecutor(sendThreads, sendThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxConnections),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "seat-stream-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("sessions.seats.stream.connections", this.connections, AtomicInteger::get)
+                .register(meterRegistry);
+    }
+
+    public SseEmitter subscribe() {
+        if (this.connections.incrementAndGet() > this.maxConnections) {
+            this.connections.decrementAndGet();
+            throw new ServiceUnavailableException(this.retryAfterSeconds);
+        }
+
+        Subscriber subscriber = new Subscriber(createEmitter(this.timeoutMs), this.maxPendingEvents);
+        subscriber.emitter.onCompletion(() -> remove(subscriber));
+        subscriber.emitter.onTimeout(subscriber.emitter::complete);
+        subscriber.emitter.onError(error -> remove(subscriber));
+        this.subscribers.add(subscriber);
+        return subscriber.emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSessionChanged(SessionChangedEvent event) {
+        if (event.getSessionId() != null) {
+            this.changedSessionIds.add(event.getSessionId());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${oc.app.seatStreamFlushMs:250}")
+    public void flush() {
+        if (this.changedSessionIds.isEmpty()) {
+            return;
+        }
+
+        List<Long> sessionIds = new ArrayList<>(this.changedSessionIds);
+        this.changedSessionIds.removeAll(sessionIds);
+        if (this.subscribers.isEmpty()) {
+            return;
+        }
+
+        List<SeatAvailability> changes = this.sessionRepository.findSeatAvailability(sessionIds);
+        if (changes.isEmpty()) {
+            return;
+        }
+
+        String data;
+        try {
+            data = this.objectMapper.writeValueAsString(changes);
+        } catch (JsonProcessingException e) {
+            log.error("Cannot serialize seat availability", e);
+            return;
+        }
+
+        // Only hands the event over, the scheduler thread never writes to a client
+        long now = System.currentTimeMillis();
+        for (Subscriber subscriber : this.subscribers) {
+            long sendingSince = subscriber.sendingSince;
+            if ((sendingSince != 0 && now - sendingSince > this.sendTimeoutMs) || !subscriber.pending.offer(data)) {
+                disconnect(subscriber);
+            } else {
+                schedule(subscriber);
+            }
+        }
+    }
+
+    public int getConnections() {
+        return this.connections.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        this.sendExecutor.shutdownNow();
+    }
+
+    protected SseEmitter createEmitter(long timeoutMs) {
+        return new SseEmitter(timeoutMs);
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (!subscriber.draining.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            this.sendExecutor.execute(() -> drain(subscriber));
+        } catch (RejectedExecutionException e) {
+            subscriber.draining.set(false);
+            disconnect(subscriber);
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            String data;
+            while (!subscriber.closed && (data = subscriber.pending.poll()) != null) {
+                subscriber.sendingSince = System.currentTimeMillis();
+                subscriber.emitter.send(SseEmitter.event().name(EVENT_NAME).data(data));
+                subscriber.sendingSince = 0;
+            }
+        } catch (IOException | IllegalStateException e) {
+            // The client went away, the container reports the completion asynchronously
+            remove(subscriber);
+            return;
+        } finally {
+            subscriber.draining.set(false);
+        }
+
+        if (subscriber.closed) {
+            complete(subscriber);
+        } else if (!subscriber.pending.isEmpty()) {
+            // An event handed over between the last poll and the flag being cleared
+            schedule(subscriber);
+        }
+    }
+
+    // The client stopped reading, it reconnects and reads the current counts again
+    private void disconnect(Subscriber subscriber) {
+        if (remove(subscriber)) {
+            log.warn("Disconnecting a seat stream client that fell behind");
+            subscriber.closed = true;
+            complete(subscriber);
+        }
+    }
+
+    // The emitter is locked while a write runs, so a stalled write is left to the thread running it
+    // and the emitter is completed by whichever thread finds it idle first
+    private void complete(Subscriber subscriber) {
+        if (subscriber.draining.compareAndSet(false, true)) {
+            subscriber.emitter.complete();
+        }
+    }
+
+    private boolean remove(Subscriber subscriber) {
+        if (this.subscribers.remove(subscriber)) {
+            this.connections.decrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    // Written to by at most one thread at a time, the events not yet sent wait in a bounded queue
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+
+        private final BlockingQueue<String> pending;
+
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private volatile long sendingSince;
+
+        private volatile boolean closed;
+
+        private Subscriber(SseEmitter emitter, int maxPendingEvents) {
+            this.emitter = emitter;
+            this.pending = new ArrayBlockingQueue<>(maxPendingEvents);
+        }
+    }
+}
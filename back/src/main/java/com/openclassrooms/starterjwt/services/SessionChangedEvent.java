@@ -0,0 +1,12 @@
+package com.openclassrooms.starterjwt.services;
+
+import lombok.Value;
+
+/**
+ * Published after a write that changes the session schedule. A null session id means that any
+ * session may have changed.
+ */
+@Value
+public class SessionChangedEvent {
+    Long sessionId;
+}
@@ -0,0 +1,218 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.mapper.SessionMapper;
+import com.openclassrooms.starterjwt.models.Session;
+import lombok.Value;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Immutable snapshot of the mapped session schedule. A committed write only marks the session it
+ * changed; a single background worker reloads the marked sessions and publishes a new version.
+ * Readers only dereference the current snapshot and never wait on a writer.
+ */
+@Component
+@Log4j2
+public class SessionScheduleCache {
+    private final SessionService sessionService;
+
+    private final SessionMapper sessionMapper;
+
+    // Distinguishes the versions of this instance from those handed out before a restart
+    private final long generation = System.currentTimeMillis();
+
+    // Sessions changed since the last refresh, a null id in an event marks the whole schedule
+    private final Set<Long> changed = ConcurrentHashMap.newKeySet();
+
+    private final AtomicBoolean changedAll = new AtomicBoolean();
+
+    // When each session was last written, so a single session is validated without the snapshot
+    private final Map<Long, Long> changedAt = new ConcurrentHashMap<>();
+
+    private volatile long changedAllAt = this.generation;
+
+    // Patches the snapshot off the writers' threads, at most one refresh is queued at a time
+    private final Executor refreshExecutor;
+
+    private final AtomicBoolean refreshQueued = new AtomicBoolean();
+
+    // Held by the worker and by the first reader, never by a writer
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
+    private long version;
+
+    private volatile Snapshot snapshot;
+
+    @Autowired
+    public SessionScheduleCache(SessionService sessionService, SessionMapper sessionMapper) {
+        this(sessionService, sessionMapper, Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "session-schedule-refresh");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    public SessionScheduleCache(SessionService sessionService, SessionMapper sessionMapper, Executor refreshExecutor) {
+        this.sessionService = sessionService;
+        this.sessionMapper = sessionMapper;
+        this.refreshExecutor = refreshExecutor;
+    }
+
+    public Snapshot get() {
+        Snapshot current = this.snapshot;
+        if (current != null) {
+            return current;
+        }
+
+        this.refreshLock.lock();
+        try {
+            if (this.snapshot == null) {
+                this.changedAll.set(false);
+                this.changed.clear();
+                this.snapshot = snapshot(this.generation, loadAll());
+            }
+            return this.snapshot;
+        } finally {
+            this.refreshLock.unlock();
+        }
+    }
+
+    /**
+     * Last write to one session, or the start of this instance when it was not written since.
+     * Never builds the snapshot.
+     */
+    public long lastModified(Long sessionId) {
+        return Math.max(this.changedAt.getOrDefault(sessionId, this.generation), this.changedAllAt);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSessionChanged(SessionChangedEvent event) {
+        long now = System.currentTimeMillis();
+        if (event.getSessionId() == null) {
+            this.changedAllAt = now;
+            this.changedAll.set(true);
+        } else {
+            this.changedAt.put(event.getSessionId(), now);
+            this.changed.add(event.getSessionId());
+        }
+
+        if (this.refreshQueued.compareAndSet(false, true)) {
+            this.refreshExecutor.execute(this::refresh);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (this.refreshExecutor instanceof ExecutorService) {
+            ((ExecutorService) this.refreshExecutor).shutdown();
+        }
+    }
+
+    // Applies every change marked so far. The flag is cleared first and an id is taken off the set
+    // before its session is read, so a write committed meanwhile queues another refresh that applies
+    // it, instead of being overwritten by an older read.
+    private void refresh() {
+        this.refreshQueued.set(false);
+        this.refreshLock.lock();
+        try {
+            apply();
+        } catch (RuntimeException e) {
+            // The next reader loads the schedule in full rather than keep serving a stale one
+            log.error("Cannot refresh the session schedule", e);
+            this.snapshot = null;
+        } finally {
+            this.refreshLock.unlock();
+        }
+    }
+
+    private void apply() {
+        Snapshot current = this.snapshot;
+        if (current == null) {
+            // Nobody has read the schedule yet, the first reader loads it in full
+            this.changedAll.set(false);
+            this.changed.clear();
+            return;
+        }
+
+        List<SessionDto> sessions;
+        if (this.changedAll.getAndSet(false)) {
+            this.changed.clear();
+            sessions = loadAll();
+        } else if (!this.changed.isEmpty()) {
+            sessions = new ArrayList<>(current.getSessions());
+            for (Iterator<Long> ids = this.changed.iterator(); ids.hasNext(); ) {
+                Long id = ids.next();
+                ids.remove();
+                patch(sessions, id);
+            }
+        } else {
+            // Already applied by the previous refresh
+            return;
+        }
+
+        this.snapshot = snapshot(System.currentTimeMillis(), sessions);
+    }
+
+    private void patch(List<SessionDto> sessions, Long id) {
+        Session session = this.sessionService.getById(id);
+        int index = indexOf(sessions, id);
+        if (session == null) {
+            if (index >= 0) {
+                sessions.remove(index);
+            }
+        } else if (index >= 0) {
+            sessions.set(index, this.sessionMapper.toDto(session));
+        } else {
+            sessions.add(this.sessionMapper.toDto(session));
+        }
+    }
+
+    private List<SessionDto> loadAll() {
+        return new ArrayList<>(this.sessionMapper.toDto(this.sessionService.findAll()));
+    }
+
+    // Versions keep increasing when the schedule is loaded again, so an old tag never matches
+    private Snapshot snapshot(long lastModified, List<SessionDto> sessions) {
+        long next = this.version++;
+        return new Snapshot(next, "\"" + this.generation + "-" + next + "\"", lastModified,
+                Collections.unmodifiableList(sessions));
+    }
+
+    private static int indexOf(List<SessionDto> sessions, Long id) {
+        for (int i = 0; i < sessions.size(); i++) {
+            if (Objects.equals(sessions.get(i).getId(), id)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Value
+    public static class Snapshot {
+        long version;
+
+        String eTag;
+
+        long lastModified;
+
+        List<SessionDto> sessions;
+    }
+}
@@ -1,14 +1,37 @@
 package com.openclassrooms.starterjwt.services;
 
+import com.openclassrooms.starterjwt.dto.SessionSummary;
 import com.openclassrooms.starterjwt.exception.BadRequestException;
 import com.openclassrooms.starterjwt.exception.NotFoundException;
 import com.openclassrooms.starterjwt.models.Session;
 import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.models.WaitlistEntry;
+import com.openclassrooms.starterjwt.payload.request.ParticipationRequest;
+import com.openclassrooms.starterjwt.payload.response.ParticipationResult;
+import com.openclassrooms.starterjwt.repository.ParticipationBatchRepository;
 import com.openclassrooms.starterjwt.repository.SessionRepository;
 import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.repository.WaitlistRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -17,62 +40,309 @@ public class SessionService {
 
     private final UserRepository userRepository;
 
-    public SessionService(SessionRepository sessionRepository, UserRepository userRepository) {
+    private final WaitlistRepository waitlistRepository;
+
+    private final ParticipationBatchRepository participationBatchRepository;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public SessionService(SessionRepository sessionRepository, UserRepository userRepository,
+                          WaitlistRepository waitlistRepository,
+                          ParticipationBatchRepository participationBatchRepository,
+                          ApplicationEventPublisher eventPublisher) {
         this.sessionRepository = sessionRepository;
         this.userRepository = userRepository;
+        this.waitlistRepository = waitlistRepository;
+        this.participationBatchRepository = participationBatchRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     public Session create(Session session) {
-        return this.sessionRepository.save(session);
+        checkRoster(session);
+        session.setSeatsTaken(session.getUsers() == null ? 0 : session.getUsers().size());
+        Session created = this.sessionRepository.save(session);
+        this.eventPublisher.publishEvent(new SessionChangedEvent(created.getId()));
+        return created;
     }
 
     public void delete(Long id) {
         this.sessionRepository.deleteById(id);
+        this.eventPublisher.publishEvent(new SessionChangedEvent(id));
     }
 
     public List<Session> findAll() {
-        return this.sessionRepository.findAll();
+        return this.sessionRepository.findAllWithUsers();
+    }
+
+    public List<Session> findPage(int page, int size) {
+        return withUsers(this.sessionRepository.findAllByOrderByDateAscIdAsc(PageRequest.of(page, size)));
+    }
+
+    public List<Session> findAfter(Date date, Long id, int size) {
+        return withUsers(this.sessionRepository.findAfter(date, id, PageRequest.of(0, size)));
+    }
+
+    public List<SessionSummary> findSummaries(int page, int size) {
+        return this.sessionRepository.findSummaries(PageRequest.of(page, size));
+    }
+
+    public List<SessionSummary> findSummariesAfter(Date date, Long id, int size) {
+        return this.sessionRepository.findSummariesAfter(date, id, PageRequest.of(0, size));
+    }
+
+    public List<SessionSummary> findSummariesByUser(Long userId, boolean upcoming, int page, int size) {
+        Date now = new Date();
+        PageRequest pageRequest = PageRequest.of(page, size);
+        return upcoming
+                ? this.sessionRepository.findUpcomingSummariesByUser(userId, now, pageRequest)
+                : this.sessionRepository.findPastSummariesByUser(userId, now, pageRequest);
+    }
+
+    public SortedMap<LocalDate, List<SessionSummary>> findCalendar(LocalDate from, LocalDate to) {
+        ZoneId zone = ZoneId.systemDefault();
+        SortedMap<LocalDate, List<SessionSummary>> calendar = new TreeMap<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            calendar.put(day, new ArrayList<>());
+        }
+
+        List<SessionSummary> summaries = this.sessionRepository.findSummariesBetween(
+                Date.from(from.atStartOfDay(zone).toInstant()),
+                Date.from(to.plusDays(1).atStartOfDay(zone).toInstant()));
+        for (SessionSummary summary : summaries) {
+            calendar.get(summary.getDate().toInstant().atZone(zone).toLocalDate()).add(summary);
+        }
+        return calendar;
     }
 
     public Session getById(Long id) {
-        return this.sessionRepository.findById(id).orElse(null);
+        return this.sessionRepository.findWithUsersById(id).orElse(null);
+    }
+
+    public boolean exists(Long id) {
+        return this.sessionRepository.existsById(id);
     }
 
+    @Transactional
     public Session update(Long id, Session session) {
+        // Locked first, like sign-ups and cancellations, so they cannot interleave with the promotions
+        this.sessionRepository.lockById(id);
+        if (session.getCapacity() == null) {
+            // The edit form does not send the capacity, omitting it keeps the stored limit
+            this.sessionRepository.findById(id).ifPresent(stored -> session.setCapacity(stored.getCapacity()));
+        }
+        checkRoster(session);
         session.setId(id);
-        return this.sessionRepository.save(session);
+        Session updated = this.sessionRepository.save(session);
+        if (updated.getUsers() == null) {
+            updated.setUsers(new ArrayList<>());
+        }
+
+        // Seats freed by a shorter roster or a larger capacity go to the waitlist, in arrival order.
+        // The promoted users join the roster, which writes their PARTICIPATE rows with the others.
+        List<User> users = updated.getUsers();
+        Set<Long> userIds = users.stream().map(User::getId).collect(Collectors.toSet());
+        Optional<WaitlistEntry> next;
+        while ((updated.getCapacity() == null || users.size() < updated.getCapacity())
+                && (next = this.waitlistRepository.findFirstBySessionIdOrderByIdAsc(id)).isPresent()) {
+            this.waitlistRepository.delete(next.get());
+            if (userIds.add(next.get().getUserId())) {
+                users.add(this.userRepository.getById(next.get().getUserId()));
+            }
+        }
+
+        // The participants may have been replaced, recount them from the rows written by this update
+        // and read the session back with the stored counter
+        this.sessionRepository.recountSeatsTaken(id);
+        this.eventPublisher.publishEvent(new SessionChangedEvent(id));
+        return this.sessionRepository.findWithUsersById(id).orElse(updated);
     }
 
-    public void participate(Long id, Long userId) {
-        Session session = this.sessionRepository.findById(id).orElse(null);
-        User user = this.userRepository.findById(userId).orElse(null);
-        if (session == null || user == null) {
+    // A seat is taken with a conditional UPDATE on the session row, which only serializes sign-ups
+    // to the same session, and is refused while anyone is waiting. Otherwise the row is locked so
+    // that joining the waitlist cannot interleave with a cancellation promoting its head.
+    @Transactional
+    public ParticipationStatus participate(Long id, Long userId) {
+        if (!this.sessionRepository.existsById(id) || !this.userRepository.existsById(userId)) {
             throw new NotFoundException();
         }
 
-        boolean alreadyParticipate = session.getUsers().stream().anyMatch(o -> o.getId().equals(userId));
-        if(alreadyParticipate) {
-            throw new BadRequestException();
+        if (this.sessionRepository.takeSeat(id) == 0) {
+            this.sessionRepository.lockById(id);
+            if (this.sessionRepository.takeSeat(id) == 0) {
+                joinWaitlist(id, userId);
+                return ParticipationStatus.WAITLISTED;
+            }
+        }
+
+        // Any failure below rolls the seat back with the transaction
+        addParticipant(id, userId);
+        this.waitlistRepository.removeFromWaitlist(id, userId);
+        this.eventPublisher.publishEvent(new SessionChangedEvent(id));
+        return ParticipationStatus.PARTICIPATING;
+    }
+
+    // Invalid items are reported without being written, so they never roll back the valid ones. The
+    // sessions are locked up front, like single sign-ups, before their registrations are read.
+    @Transactional
+    public List<ParticipationResult> participateAll(List<ParticipationRequest> participations) {
+        Set<Long> sessionIds = participations.stream().map(ParticipationRequest::getSessionId).collect(Collectors.toSet());
+        Set<Long> userIds = participations.stream().map(ParticipationRequest::getUserId).collect(Collectors.toSet());
+
+        Map<Long, Integer> freeSeats = this.participationBatchRepository.lockFreeSeats(sessionIds);
+        Set<Long> existingUserIds = this.participationBatchRepository.findExistingUserIds(userIds);
+        Map<ParticipationRequest, ParticipationStatus> registrations = new HashMap<>();
+        Map<Long, Integer> waiting = new HashMap<>();
+        if (!freeSeats.isEmpty() && !existingUserIds.isEmpty()) {
+            registrations = this.participationBatchRepository.findRegistrations(freeSeats.keySet(), existingUserIds);
+            waiting = this.participationBatchRepository.countWaiting(freeSeats.keySet());
+        }
+
+        // Members already waiting are seated first, in arrival order, and leave the waitlist
+        Set<ParticipationRequest> requested = new HashSet<>(participations);
+        Set<ParticipationRequest> promoted = new LinkedHashSet<>();
+        Map<Long, Integer> seatsTaken = new TreeMap<>();
+        for (Map.Entry<ParticipationRequest, ParticipationStatus> registration : registrations.entrySet()) {
+            ParticipationRequest participation = registration.getKey();
+            if (registration.getValue() == ParticipationStatus.WAITLISTED && requested.contains(participation)
+                    && takeFreeSeat(freeSeats, seatsTaken, participation.getSessionId())) {
+                waiting.merge(participation.getSessionId(), -1, Integer::sum);
+                promoted.add(participation);
+            }
         }
 
-        session.getUsers().add(user);
+        // Newcomers only get the seats left while nobody else waits
+        List<ParticipationResult> results = new ArrayList<>();
+        List<ParticipationRequest> participants = new ArrayList<>(promoted);
+        List<ParticipationRequest> waitlisted = new ArrayList<>();
+        Set<ParticipationRequest> reported = new HashSet<>();
+        for (ParticipationRequest participation : participations) {
+            Long sessionId = participation.getSessionId();
+            ParticipationStatus status;
+            if (!freeSeats.containsKey(sessionId) || !existingUserIds.contains(participation.getUserId())) {
+                status = ParticipationStatus.NOT_FOUND;
+            } else if (!reported.add(participation)) {
+                status = ParticipationStatus.ALREADY_REGISTERED;
+            } else if (promoted.contains(participation)) {
+                status = ParticipationStatus.PARTICIPATING;
+            } else if (registrations.containsKey(participation)) {
+                status = ParticipationStatus.ALREADY_REGISTERED;
+            } else if (waiting.getOrDefault(sessionId, 0) == 0 && takeFreeSeat(freeSeats, seatsTaken, sessionId)) {
+                participants.add(participation);
+                status = ParticipationStatus.PARTICIPATING;
+            } else {
+                waiting.merge(sessionId, 1, Integer::sum);
+                waitlisted.add(participation);
+                status = ParticipationStatus.WAITLISTED;
+            }
+            results.add(new ParticipationResult(sessionId, participation.getUserId(), status));
+        }
 
-        this.sessionRepository.save(session);
+        if (!promoted.isEmpty()) {
+            this.participationBatchRepository.removeFromWaitlist(new ArrayList<>(promoted));
+        }
+        if (!participants.isEmpty()) {
+            this.participationBatchRepository.addParticipants(participants);
+            this.participationBatchRepository.takeSeats(seatsTaken);
+        }
+        if (!waitlisted.isEmpty()) {
+            this.participationBatchRepository.addToWaitlist(waitlisted);
+        }
+        seatsTaken.keySet().forEach(id -> this.eventPublisher.publishEvent(new SessionChangedEvent(id)));
+        return results;
     }
 
+    @Transactional
     public void noLongerParticipate(Long id, Long userId) {
-        Session session = this.sessionRepository.findById(id).orElse(null);
-        if (session == null) {
+        // Locked first, in the same order as sign-ups: session row, then its PARTICIPATE rows
+        this.sessionRepository.lockById(id);
+        if (this.sessionRepository.removeParticipant(id, userId) > 0) {
+            Optional<WaitlistEntry> next = this.waitlistRepository.findFirstBySessionIdOrderByIdAsc(id);
+            if (next.isPresent()) {
+                // The freed seat goes to the head of the waitlist, the counter is unchanged
+                this.waitlistRepository.delete(next.get());
+                addParticipant(id, next.get().getUserId());
+            } else {
+                this.sessionRepository.releaseSeat(id);
+            }
+            this.eventPublisher.publishEvent(new SessionChangedEvent(id));
+            return;
+        }
+
+        if (this.waitlistRepository.removeFromWaitlist(id, userId) > 0) {
+            return;
+        }
+
+        if (!this.sessionRepository.existsById(id)) {
             throw new NotFoundException();
         }
+        throw new BadRequestException();
+    }
+
+    // A null count of free seats means no limit
+    private static boolean takeFreeSeat(Map<Long, Integer> freeSeats, Map<Long, Integer> seatsTaken, Long sessionId) {
+        Integer free = freeSeats.get(sessionId);
+        if (free != null && free == 0) {
+            return false;
+        }
+
+        freeSeats.computeIfPresent(sessionId, (id, seats) -> seats - 1);
+        seatsTaken.merge(sessionId, 1, Integer::sum);
+        return true;
+    }
+
+    // A roster larger than the capacity would leave more seats taken than the session has
+    private static void checkRoster(Session session) {
+        if (session.getCapacity() != null && session.getUsers() != null
+                && session.getUsers().size() > session.getCapacity()) {
+            throw new BadRequestException();
+        }
+    }
 
-        boolean alreadyParticipate = session.getUsers().stream().anyMatch(o -> o.getId().equals(userId));
-        if(!alreadyParticipate) {
+    private void addParticipant(Long id, Long userId) {
+        int inserted;
+        try {
+            inserted = this.sessionRepository.addParticipant(id, userId);
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent sign-up of the same user won the race on the unique key
             throw new BadRequestException();
         }
 
-        session.setUsers(session.getUsers().stream().filter(user -> !user.getId().equals(userId)).collect(Collectors.toList()));
+        if (inserted == 0) {
+            throw new BadRequestException();
+        }
+    }
+
+    private void joinWaitlist(Long id, Long userId) {
+        if (this.sessionRepository.isParticipant(id, userId)) {
+            throw new BadRequestException();
+        }
+
+        int inserted;
+        try {
+            inserted = this.waitlistRepository.addToWaitlist(id, userId);
+        } catch (DataIntegrityViolationException e) {
+            throw new BadRequestException();
+        }
+
+        if (inserted == 0) {
+            throw new BadRequestException();
+        }
+    }
+
+    // Participants cannot be fetch-joined into a limited query, so the page is read first and its
+    // sessions are then loaded with their participants in one query, keeping the page order.
+    private List<Session> withUsers(List<Session> page) {
+        if (page.isEmpty()) {
+            return page;
+        }
+
+        Map<Long, Session> sessionsById = this.sessionRepository
+                .findDistinctByIdIn(page.stream().map(Session::getId).collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.toMap(Session::getId, Function.identity()));
 
-        this.sessionRepository.save(session);
+        return page.stream()
+                .map(session -> sessionsById.getOrDefault(session.getId(), session))
+                .collect(Collectors.toList());
     }
 }
@@ -2,21 +2,61 @@ package com.openclassrooms.starterjwt.services;
 
 import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.security.jwt.TokenDenyList;
+import com.openclassrooms.starterjwt.security.services.UserDetailsCache;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
 @Service
 public class UserService {
     private final UserRepository userRepository;
 
-    public UserService(UserRepository userRepository) {
+    private final UserDetailsCache userDetailsCache;
+
+    private final TokenDenyList tokenDenyList;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public UserService(UserRepository userRepository, UserDetailsCache userDetailsCache, TokenDenyList tokenDenyList,
+                       ApplicationEventPublisher eventPublisher) {
         this.userRepository = userRepository;
+        this.userDetailsCache = userDetailsCache;
+        this.tokenDenyList = tokenDenyList;
+        this.eventPublisher = eventPublisher;
     }
 
     public void delete(Long id) {
         this.userRepository.deleteById(id);
+        this.userDetailsCache.evict(id);
+        this.tokenDenyList.revoke(id);
+        // The user may have been listed as a participant
+        this.eventPublisher.publishEvent(new SessionChangedEvent(null));
     }
 
     public User findById(Long id) {
         return this.userRepository.findById(id).orElse(null);
     }
+
+    public List<User> findAllById(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // A repeated id would be written twice to PARTICIPATE and break its primary key
+        List<Long> distinctIds = ids.stream().distinct().collect(Collectors.toList());
+        Map<Long, User> usersById = this.userRepository.findAllById(distinctIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+
+        return distinctIds.stream()
+                .map(usersById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
 }
@@ -0,0 +1,16 @@
+-- Duplicate participations may exist since PARTICIPATE had no key: keep one row per pair.
+CREATE TABLE `PARTICIPATE_DEDUP` AS
+  SELECT DISTINCT `session_id`, `user_id` FROM `PARTICIPATE`
+  WHERE `session_id` IS NOT NULL AND `user_id` IS NOT NULL;
+DELETE FROM `PARTICIPATE`;
+INSERT INTO `PARTICIPATE` (`session_id`, `user_id`) SELECT `session_id`, `user_id` FROM `PARTICIPATE_DEDUP`;
+DROP TABLE `PARTICIPATE_DEDUP`;
+
+ALTER TABLE `PARTICIPATE` MODIFY `session_id` INT NOT NULL;
+ALTER TABLE `PARTICIPATE` MODIFY `user_id` INT NOT NULL;
+ALTER TABLE `PARTICIPATE` ADD PRIMARY KEY (`session_id`, `user_id`);
+
+-- The primary key serves lookups by session; sessions of a user need the reverse index.
+CREATE INDEX `IDX_PARTICIPATE_USER` ON `PARTICIPATE` (`user_id`);
+
+CREATE INDEX `IDX_SESSIONS_DATE_ID` ON `SESSIONS` (`date`, `id`);
@@ -0,0 +1,17 @@
+-- No limit when capacity is NULL. seats_taken mirrors the PARTICIPATE rows of the session.
+ALTER TABLE `SESSIONS` ADD `capacity` INT NULL;
+ALTER TABLE `SESSIONS` ADD `seats_taken` INT NOT NULL DEFAULT 0;
+UPDATE `SESSIONS` SET `seats_taken` = (SELECT COUNT(*) FROM `PARTICIPATE` WHERE `PARTICIPATE`.`session_id` = `SESSIONS`.`id`);
+
+-- Members waiting for a seat, promoted in id order.
+CREATE TABLE `WAITLIST` (
+  `id` INT PRIMARY KEY AUTO_INCREMENT,
+  `session_id` INT NOT NULL,
+  `user_id` INT NOT NULL,
+  `created_at` TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  CONSTRAINT `UK_WAITLIST_SESSION_USER` UNIQUE (`session_id`, `user_id`),
+  FOREIGN KEY (`session_id`) REFERENCES `SESSIONS`(`id`) ON DELETE CASCADE,
+  FOREIGN KEY (`user_id`) REFERENCES `USERS`(`id`) ON DELETE CASCADE
+);
+
+CREATE INDEX `IDX_WAITLIST_SESSION_ID` ON `WAITLIST` (`session_id`, `id`);
@@ -0,0 +1,108 @@
+package com.openclassrooms.starterjwt.benchmark;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.BeanUtils;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.security.jwt.AuthTokenFilter;
+import com.openclassrooms.starterjwt.security.jwt.JwtUtils;
+import com.openclassrooms.starterjwt.security.jwt.TokenDenyList;
+import com.openclassrooms.starterjwt.security.jwt.VerifiedTokenCache;
+import com.openclassrooms.starterjwt.security.services.UserDetailsCache;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+import com.openclassrooms.starterjwt.security.services.UserDetailsServiceImpl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * One authenticated request through {@link AuthTokenFilter} with its production caches, the user
+ * store being in memory. Without embedded claims the principal comes from the user details cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuthTokenFilterBenchmark {
+
+    private static final long EXPIRATION_MS = 86400000L;
+
+    @Param({"false", "true"})
+    private boolean embedClaims;
+
+    private AuthTokenFilter filter;
+
+    private MockHttpServletRequest request;
+
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    private final FilterChain chain = (request, response) -> { };
+
+    @Setup
+    public void setUp() throws Exception {
+        List<User> users = InMemoryRepositories.users(1000);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        JwtUtils jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", "openclassrooms");
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", (int) EXPIRATION_MS);
+        ReflectionTestUtils.setField(jwtUtils, "jwtEmbedClaims", embedClaims);
+
+        UserDetailsServiceImpl userDetailsService = BeanUtils.instantiateClass(
+            UserDetailsServiceImpl.class.getDeclaredConstructor(UserRepository.class),
+            InMemoryRepositories.userRepository(users));
+
+        filter = new AuthTokenFilter();
+        ReflectionTestUtils.setField(filter, "jwtUtils", jwtUtils);
+        ReflectionTestUtils.setField(filter, "verifiedTokenCache", new VerifiedTokenCache(jwtUtils, meterRegistry, 10000));
+        ReflectionTestUtils.setField(filter, "userDetailsCache",
+            new UserDetailsCache(userDetailsService, meterRegistry, 10000, 60000));
+        ReflectionTestUtils.setField(filter, "tokenDenyList", new TokenDenyList(EXPIRATION_MS, 100000));
+
+        User user = users.get(users.size() / 2);
+        UserDetailsImpl principal = UserDetailsImpl.builder()
+            .id(user.getId())
+            .username(user.getEmail())
+            .firstName(user.getFirstName())
+            .lastName(user.getLastName())
+            .admin(user.isAdmin())
+            .build();
+        String token = jwtUtils.generateJwtToken(new UsernamePasswordAuthenticationToken(principal, null));
+
+        request = new MockHttpServletRequest("GET", "/api/session");
+        request.addHeader("Authorization", "Bearer " + token);
+    }
+
+    @Benchmark
+    public Authentication authenticate() throws ServletException, IOException {
+        filter.doFilter(request, response, chain);
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+}
@@ -0,0 +1,93 @@
+package com.openclassrooms.starterjwt.benchmark;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.openclassrooms.starterjwt.dto.TeacherDto;
+import com.openclassrooms.starterjwt.dto.UserDto;
+import com.openclassrooms.starterjwt.mapper.TeacherMapper;
+import com.openclassrooms.starterjwt.mapper.TeacherMapperImpl;
+import com.openclassrooms.starterjwt.mapper.UserMapper;
+import com.openclassrooms.starterjwt.mapper.UserMapperImpl;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.models.User;
+
+/**
+ * List mapping of the generated {@link UserMapper} and {@link TeacherMapper}, as used by the
+ * listing endpoints.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityListMapperBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int size;
+
+    private final UserMapper userMapper = new UserMapperImpl();
+
+    private final TeacherMapper teacherMapper = new TeacherMapperImpl();
+
+    private List<User> users;
+
+    private List<UserDto> userDtos;
+
+    private List<Teacher> teachers;
+
+    private List<TeacherDto> teacherDtos;
+
+    @Setup
+    public void setUp() {
+        users = InMemoryRepositories.users(size);
+        userDtos = userMapper.toDto(users);
+
+        teachers = new ArrayList<>();
+        for (long i = 1; i <= size; i++) {
+            teachers.add(Teacher.builder()
+                .id(i)
+                .firstName("Jane")
+                .lastName("Doe")
+                .createdAt(LocalDateTime.now())
+                .updatedAt(LocalDateTime.now())
+                .build());
+        }
+        teacherDtos = teacherMapper.toDto(teachers);
+    }
+
+    @Benchmark
+    public List<UserDto> usersToDto() {
+        return userMapper.toDto(users);
+    }
+
+    @Benchmark
+    public List<User> usersToEntity() {
+        return userMapper.toEntity(userDtos);
+    }
+
+    @Benchmark
+    public List<TeacherDto> teachersToDto() {
+        return teacherMapper.toDto(teachers);
+    }
+
+    @Benchmark
+    public List<Teacher> teachersToEntity() {
+        return teacherMapper.toEntity(teacherDtos);
+    }
+}
@@ -0,0 +1,71 @@
+package com.openclassrooms.starterjwt.benchmark;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+
+/**
+ * Map-backed repositories answering the lookups made on the request path, so that benchmarks
+ * measure the application code without a database or a mocking framework in the loop.
+ */
+final class InMemoryRepositories {
+
+    private InMemoryRepositories() {
+    }
+
+    static List<User> users(int count) {
+        List<User> users = new ArrayList<>();
+        for (long i = 1; i <= count; i++) {
+            users.add(User.builder()
+                .id(i)
+                .email("member" + i + "@studio.com")
+                .firstName("John")
+                .lastName("Doe")
+                .password("$2a$10$hashhashhashhashhashha")
+                .admin(false)
+                .build());
+        }
+        return users;
+    }
+
+    static UserRepository userRepository(List<User> users) {
+        Map<Long, User> byId = users.stream().collect(Collectors.toMap(User::getId, Function.identity()));
+        Map<String, User> byEmail = users.stream().collect(Collectors.toMap(User::getEmail, Function.identity()));
+        return (UserRepository) Proxy.newProxyInstance(UserRepository.class.getClassLoader(),
+            new Class<?>[] {UserRepository.class}, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "findByEmail":
+                        return Optional.ofNullable(byEmail.get((String) args[0]));
+                    case "findById":
+                        return Optional.ofNullable(byId.get((Long) args[0]));
+                    case "findAllById":
+                        List<User> found = new ArrayList<>();
+                        for (Object id : (Iterable<?>) args[0]) {
+                            Optional.ofNullable(byId.get((Long) id)).ifPresent(found::add);
+                        }
+                        return found;
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                }
+            });
+    }
+
+    static TeacherRepository teacherRepository(Teacher teacher) {
+        return (TeacherRepository) Proxy.newProxyInstance(TeacherRepository.class.getClassLoader(),
+            new Class<?>[] {TeacherRepository.class}, (proxy, method, args) -> {
+                if ("findById".equals(method.getName())) {
+                    return teacher.getId().equals(args[0]) ? Optional.of(teacher) : Optional.empty();
+                }
+                throw new UnsupportedOperationException(method.getName());
+            });
+    }
+}
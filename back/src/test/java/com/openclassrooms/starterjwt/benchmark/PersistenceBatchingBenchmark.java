@@ -0,0 +1,153 @@
+package com.openclassrooms.starterjwt.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.openclassrooms.starterjwt.SpringBootSecurityJwtApplication;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.payload.request.ParticipationRequest;
+import com.openclassrooms.starterjwt.payload.response.ParticipationResult;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.services.SessionService;
+
+/**
+ * Throughput of the writes behind session creation and sign-ups, with the persistence settings of
+ * the prod profile against the Hibernate and driver defaults.
+ *
+ * <p>Runs on H2 in MySQL mode by default, which only checks that the benchmark works: there the tuned
+ * variant changes nothing but the Hibernate batch settings, which the JdbcTemplate batch behind
+ * participateAll and the native statements behind single sign-ups never go through, so H2 results
+ * say nothing about the prod profile. Export BENCHMARK_DATASOURCE_URL, BENCHMARK_DATASOURCE_USERNAME
+ * and BENCHMARK_DATASOURCE_PASSWORD to run against a MySQL-compatible server, where the tuned
+ * variant uses the whole prod profile including the Connector/J statement cache and batch
+ * rewriting. The schema is migrated by Flyway.
+ *
+ * <p>Every write also queues a refresh of the schedule snapshot, so the sessions written are removed
+ * before each iteration to keep that background work the same size from one iteration to the next.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PersistenceBatchingBenchmark {
+
+    private static final int PARTICIPANTS = 50;
+
+    private static final int SIGN_UPS = 10;
+
+    @Param({"false", "true"})
+    private boolean tuned;
+
+    private ConfigurableApplicationContext context;
+
+    private SessionService sessionService;
+
+    private SessionRepository sessionRepository;
+
+    private List<User> users;
+
+    @Setup
+    public void setUp() {
+        List<String> args = new ArrayList<>(Arrays.asList("--server.port=0", "--spring.jpa.show-sql=false",
+            "--logging.level.root=WARN", "--logging.level.org.hibernate.SQL=WARN",
+            "--spring.jpa.properties.hibernate.generate_statistics=false"));
+
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(SpringBootSecurityJwtApplication.class);
+        String url = System.getenv("BENCHMARK_DATASOURCE_URL");
+        if (url != null) {
+            args.add("--spring.datasource.url=" + url);
+            args.add("--spring.datasource.username=" + System.getenv("BENCHMARK_DATASOURCE_USERNAME"));
+            args.add("--spring.datasource.password=" + System.getenv("BENCHMARK_DATASOURCE_PASSWORD"));
+            if (tuned) {
+                builder.profiles("prod");
+            }
+        } else {
+            builder.profiles("test");
+            args.add("--spring.datasource.url=jdbc:h2:mem:batching;MODE=MySQL");
+            if (tuned) {
+                // The Hibernate part of the prod profile, H2 rejects the Connector/J properties
+                args.add("--spring.jpa.properties.hibernate.jdbc.batch_size=50");
+                args.add("--spring.jpa.properties.hibernate.order_inserts=true");
+                args.add("--spring.jpa.properties.hibernate.order_updates=true");
+            }
+        }
+        context = builder.run(args.toArray(new String[0]));
+        sessionService = context.getBean(SessionService.class);
+        sessionRepository = context.getBean(SessionRepository.class);
+
+        List<User> members = new ArrayList<>();
+        for (int i = 0; i < PARTICIPANTS; i++) {
+            members.add(new User("batch" + i + "@studio.com", "Doe", "John", "$2a$10$hashhashhashhashhashha", false));
+        }
+        users = context.getBean(UserRepository.class).saveAll(members);
+    }
+
+    @Setup(Level.Iteration)
+    public void clearSessions() {
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("DELETE FROM PARTICIPATE");
+        jdbcTemplate.update("DELETE FROM WAITLIST");
+        jdbcTemplate.update("DELETE FROM SESSIONS");
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Long createWithParticipants() {
+        return sessionService.create(newSession(new ArrayList<>(users))).getId();
+    }
+
+    @Benchmark
+    public List<ParticipationResult> participateAll() {
+        Long sessionId = sessionRepository.save(newSession(new ArrayList<>())).getId();
+        return sessionService.participateAll(users.stream()
+            .map(user -> new ParticipationRequest(sessionId, user.getId()))
+            .collect(Collectors.toList()));
+    }
+
+    @Benchmark
+    public Long participateOneByOne() {
+        Long sessionId = sessionRepository.save(newSession(new ArrayList<>())).getId();
+        for (User user : users.subList(0, SIGN_UPS)) {
+            sessionService.participate(sessionId, user.getId());
+        }
+        return sessionId;
+    }
+
+    private static Session newSession(List<User> participants) {
+        return Session.builder()
+            .name("Batched class")
+            .description("A yoga session used to measure the write path")
+            .date(new Date())
+            .users(participants)
+            .build();
+    }
+}
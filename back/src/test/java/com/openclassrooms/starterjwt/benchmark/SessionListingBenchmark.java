@@ -0,0 +1,100 @@
+package com.openclassrooms.starterjwt.benchmark;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.openclassrooms.starterjwt.SpringBootSecurityJwtApplication;
+import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.dto.SessionSummary;
+import com.openclassrooms.starterjwt.mapper.SessionMapper;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.services.SessionService;
+
+/**
+ * Heap and time spent on one page of the session list, mapped from entities with their
+ * participants against the {@link SessionSummary} projection. Run with the gc profiler and compare
+ * gc.alloc.rate.norm (bytes allocated per request).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SessionListingBenchmark {
+
+    private static final int SESSIONS = 100;
+
+    private static final int PARTICIPANTS = 30;
+
+    private static final int PAGE_SIZE = 50;
+
+    private ConfigurableApplicationContext context;
+
+    private SessionService sessionService;
+
+    private SessionMapper sessionMapper;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(SpringBootSecurityJwtApplication.class)
+            .profiles("test")
+            .properties("server.port=0", "spring.jpa.show-sql=false", "logging.level.root=WARN",
+                "spring.jpa.properties.hibernate.generate_statistics=false")
+            .run();
+        sessionService = context.getBean(SessionService.class);
+        sessionMapper = context.getBean(SessionMapper.class);
+
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < PARTICIPANTS; i++) {
+            users.add(new User("bench" + i + "@studio.com", "Doe", "John", "$2a$10$hashhashhashhashhashha", false));
+        }
+        users = context.getBean(UserRepository.class).saveAll(users);
+
+        SessionRepository sessionRepository = context.getBean(SessionRepository.class);
+        for (int i = 0; i < SESSIONS; i++) {
+            Session session = sessionRepository.save(Session.builder()
+                .name("Session " + i)
+                .description("A yoga session used to measure the listing cost")
+                .date(new Date(1700000000000L + i * 3600000L))
+                .build());
+            for (User user : users) {
+                sessionService.participate(session.getId(), user.getId());
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<SessionDto> entitiesWithParticipants() {
+        return sessionMapper.toDto(sessionService.findPage(0, PAGE_SIZE));
+    }
+
+    @Benchmark
+    public List<SessionSummary> summaries() {
+        return sessionService.findSummaries(0, PAGE_SIZE);
+    }
+}
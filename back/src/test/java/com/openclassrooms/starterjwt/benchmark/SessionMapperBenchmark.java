@@ -0,0 +1,85 @@
+package com.openclassrooms.starterjwt.benchmark;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.mapper.SessionMapper;
+import com.openclassrooms.starterjwt.mapper.SessionMapperImpl;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.services.TeacherService;
+import com.openclassrooms.starterjwt.services.UserService;
+
+/**
+ * Mapping one session in both directions as its participant list grows. The services resolving
+ * the teacher and the participants read from in-memory repositories.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SessionMapperBenchmark {
+
+    @Param({"1", "50", "500"})
+    private int participants;
+
+    private SessionMapper sessionMapper;
+
+    private Session session;
+
+    private SessionDto sessionDto;
+
+    @Setup
+    public void setUp() {
+        List<User> users = InMemoryRepositories.users(participants);
+        Teacher teacher = Teacher.builder().id(1L).firstName("Jane").lastName("Doe").build();
+
+        sessionMapper = new SessionMapperImpl();
+        ReflectionTestUtils.setField(sessionMapper, "userService",
+            new UserService(InMemoryRepositories.userRepository(users), null, null, null));
+        ReflectionTestUtils.setField(sessionMapper, "teacherService",
+            new TeacherService(InMemoryRepositories.teacherRepository(teacher)));
+
+        session = Session.builder()
+            .id(1L)
+            .name("Morning flow")
+            .description("A yoga session used to measure the mapping cost")
+            .date(new Date())
+            .teacher(teacher)
+            .users(users)
+            .capacity(participants)
+            .seatsTaken(participants)
+            .build();
+        sessionDto = sessionMapper.toDto(session);
+        sessionDto.setUsers(users.stream().map(User::getId).collect(Collectors.toList()));
+    }
+
+    @Benchmark
+    public SessionDto toDto() {
+        return sessionMapper.toDto(session);
+    }
+
+    @Benchmark
+    public Session toEntity() {
+        return sessionMapper.toEntity(sessionDto);
+    }
+}
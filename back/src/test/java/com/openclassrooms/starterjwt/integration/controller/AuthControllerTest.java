@@ -0,0 +1,107 @@
+package com.openclassrooms.starterjwt.integration.controller;
+
+import com.openclassrooms.starterjwt.exception.ServiceUnavailableException;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.security.BoundedPasswordEncoder;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest // Loads the full application context for integration testing
+@AutoConfigureMockMvc // Automatically configures MockMvc for HTTP request testing
+@ActiveProfiles("test") // Uses the in-memory H2 database
+public class AuthControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc; // MockMvc to simulate HTTP requests
+
+    @Autowired
+    private UserRepository userRepository; // Repository used to create the test user
+
+    @Autowired
+    private PasswordEncoder passwordEncoder; // Encoder used to store the test password
+
+    @SpyBean
+    private BoundedPasswordEncoder boundedPasswordEncoder; // Lets a test saturate the hashing pool
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory; // Gives access to the Hibernate statistics
+
+    private User user;
+
+    @BeforeEach
+    public void setUp() {
+        // Arrange: An administrator stored with an encoded password
+        user = userRepository.save(new User("login@studio.com", "Doe", "Jane",
+                passwordEncoder.encode("password"), true));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        userRepository.delete(user);
+    }
+
+    @Test
+    @DisplayName("login should run a single USERS query")
+    public void shouldLoginWithASingleQuery() throws Exception {
+        // Arrange: Reset the statement counters
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // Act & Assert: Login succeeds and reports the admin flag
+        mockMvc.perform(post("/api/auth/login")
+                        .contentType(APPLICATION_JSON)
+                        .content("{\"email\":\"login@studio.com\",\"password\":\"password\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.admin").value(true))
+                .andExpect(jsonPath("$.id").value(user.getId()));
+
+        // Assert: Only the lookup done by the authentication manager hit the database
+        assertEquals(1, statistics.getPrepareStatementCount(), "Login should execute exactly one statement");
+    }
+
+    @Test
+    @DisplayName("login should answer 503 when the hashing pool is saturated, whether the user exists or not")
+    public void shouldRejectLoginWhenTheHashingPoolIsSaturated() throws Exception {
+        // Arrange: The hashing pool rejects every password check
+        doThrow(new ServiceUnavailableException(2)).when(boundedPasswordEncoder).matches(any(), anyString());
+
+        // Act & Assert: A known user gets the retry delay
+        mockMvc.perform(post("/api/auth/login")
+                        .contentType(APPLICATION_JSON)
+                        .content("{\"email\":\"login@studio.com\",\"password\":\"password\"}"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "2"));
+
+        // Act & Assert: So does an unknown one, whose dummy check hits the same pool
+        mockMvc.perform(post("/api/auth/login")
+                        .contentType(APPLICATION_JSON)
+                        .content("{\"email\":\"nobody@studio.com\",\"password\":\"password\"}"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "2"));
+    }
+}
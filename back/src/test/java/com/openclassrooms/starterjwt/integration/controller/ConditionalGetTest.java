@@ -0,0 +1,139 @@
+package com.openclassrooms.starterjwt.integration.controller;
+
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.services.SessionService;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest // Loads the full application context for integration testing
+@AutoConfigureMockMvc // Automatically configures MockMvc for HTTP request testing
+@ActiveProfiles("test") // Uses the in-memory H2 database
+@WithMockUser // Authenticated requests without issuing a token
+public class ConditionalGetTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private SessionService sessionService;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private TeacherRepository teacherRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate; // Removes the PARTICIPATE rows on cleanup
+
+    private Session session;
+
+    private Teacher teacher;
+
+    private User user;
+
+    @BeforeEach
+    public void setUp() {
+        teacher = teacherRepository.save(Teacher.builder().firstName("Jane").lastName("Doe").build());
+        user = userRepository.save(new User("etag@studio.com", "Doe", "John", "password", false));
+        session = sessionService.create(Session.builder()
+                .name("Conditional")
+                .description("Description")
+                .date(new Date())
+                .teacher(teacher)
+                .build());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        jdbcTemplate.update("DELETE FROM PARTICIPATE WHERE session_id = ?", session.getId());
+        sessionService.delete(session.getId());
+        userRepository.delete(user);
+        teacherRepository.delete(teacher);
+    }
+
+    @Test
+    public void whenScheduleIsUnchanged_thenItIsNotSentAgain() throws Exception {
+        // Arrange: A first full response
+        String eTag = mockMvc.perform(get("/api/session"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // Act & Assert: Revalidating transfers no body until a sign-up changes the schedule
+        mockMvc.perform(get("/api/session").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        sessionService.participate(session.getId(), user.getId());
+
+        // The schedule is refreshed in the background shortly after the commit
+        long deadline = System.currentTimeMillis() + 5000;
+        int status;
+        do {
+            status = mockMvc.perform(get("/api/session").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                    .andReturn().getResponse().getStatus();
+        } while (status == HttpStatus.NOT_MODIFIED.value() && System.currentTimeMillis() < deadline);
+        assertThat(status).isEqualTo(HttpStatus.OK.value());
+    }
+
+    @Test
+    public void whenSessionParticipantsChange_thenItsTagChanges() throws Exception {
+        // Arrange
+        String url = "/api/session/" + session.getId();
+        String eTag = mockMvc.perform(get(url))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, eTag)).andExpect(status().isNotModified());
+
+        // Act: Signing up does not touch updatedAt
+        sessionService.participate(session.getId(), user.getId());
+
+        // Assert
+        String changed = mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(changed).isNotEqualTo(eTag);
+    }
+
+    @Test
+    public void whenTeacherIsUnchanged_thenItIsNotSentAgain() throws Exception {
+        // Arrange
+        String url = "/api/teacher/" + teacher.getId();
+        String lastModified = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.LAST_MODIFIED);
+
+        // Act & Assert: Both validators are honoured
+        String eTag = mockMvc.perform(get(url)).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, eTag)).andExpect(status().isNotModified());
+        mockMvc.perform(get(url).header(HttpHeaders.IF_MODIFIED_SINCE, lastModified)).andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/teacher").header(HttpHeaders.IF_NONE_MATCH, eTag)).andExpect(status().isOk());
+    }
+}
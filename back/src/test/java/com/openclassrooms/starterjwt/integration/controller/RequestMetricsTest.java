@@ -0,0 +1,71 @@
+package com.openclassrooms.starterjwt.integration.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.anonymous;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "oc.app.metricsScrapePort=" + RequestMetricsTest.MANAGEMENT_PORT) // Full context, actuator left on the API port
+@AutoConfigureMockMvc // Automatically configures MockMvc for HTTP request testing
+@AutoConfigureMetrics // Keeps the Prometheus registry that tests disable by default
+@ActiveProfiles("test") // Uses the in-memory H2 database
+@WithMockUser // Authenticated requests without issuing a token
+public class RequestMetricsTest {
+
+    static final int MANAGEMENT_PORT = 8081;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void shouldExposeRequestMetricsPerControllerMethod() throws Exception {
+        // GIVEN: A successful request and a rejected one
+        mockMvc.perform(get("/api/teacher")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/session/invalid")).andExpect(status().isBadRequest());
+
+        // WHEN: Prometheus scrapes the management port without a token
+        String scrape = mockMvc.perform(get("/actuator/prometheus").with(onManagementPort()).with(anonymous()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        // THEN: Latency buckets and status counts are tagged by method, nothing is left in flight
+        assertThat(scrape)
+                .containsPattern("http_server_requests_seconds_bucket\\{[^}]*handler=\"TeacherController.findAll\"")
+                .containsPattern("http_server_requests_seconds_count\\{[^}]*handler=\"SessionController.findById\"[^}]*status=\"400\"")
+                .containsPattern("http_server_requests_seconds\\{[^}]*handler=\"TeacherController.findAll\"[^}]*quantile=\"0.999\"")
+                .containsPattern("http_server_requests_active\\{[^}]*handler=\"TeacherController.findAll\"[^}]*} 0.0")
+                .containsPattern("http_server_requests_jdbc_statements_count\\{[^}]*handler=\"TeacherController.findAll\"[^}]*} 1.0")
+                .contains("jvm_memory_used_bytes", "hikaricp_connections_active");
+    }
+
+    @Test
+    public void shouldOnlyLetHealthChecksThroughWithoutTokenOnTheApiPort() throws Exception {
+        // WHEN & THEN: The health check stays public, the metrics do not
+        mockMvc.perform(get("/actuator/health").with(anonymous())).andExpect(status().isOk());
+        mockMvc.perform(get("/actuator/prometheus").with(anonymous())).andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    public void shouldKeepTheApiBehindATokenOnTheManagementPort() throws Exception {
+        // WHEN & THEN: Only the scrape endpoint is opened on the management port
+        mockMvc.perform(get("/api/teacher").with(onManagementPort()).with(anonymous()))
+                .andExpect(status().isUnauthorized());
+    }
+
+    private static RequestPostProcessor onManagementPort() {
+        return request -> {
+            request.setLocalPort(MANAGEMENT_PORT);
+            return request;
+        };
+    }
+}
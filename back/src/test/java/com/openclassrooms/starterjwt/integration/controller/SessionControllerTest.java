@@ -4,6 +4,8 @@ import com.openclassrooms.starterjwt.controllers.SessionController;
 import com.openclassrooms.starterjwt.dto.SessionDto;
 import com.openclassrooms.starterjwt.mapper.SessionMapper;
 import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.services.SeatAvailabilityBroadcaster;
+import com.openclassrooms.starterjwt.services.SessionScheduleCache;
 import com.openclassrooms.starterjwt.services.SessionService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -29,6 +31,12 @@ public class SessionControllerTest {
     @Mock
     private SessionMapper sessionMapper; // Mocking SessionMapper
 
+    @Mock
+    private SessionScheduleCache sessionScheduleCache; // Mocking the cached schedule snapshot
+
+    @Mock
+    private SeatAvailabilityBroadcaster seatAvailabilityBroadcaster; // Mocking the live seat updates
+
     @InjectMocks
     private SessionController sessionController; // Injecting mocks into SessionController
 
@@ -84,12 +92,10 @@ public class SessionControllerTest {
 
     @Test
     public void testFindAll() {
-        // Arrange: Simulate fetching all sessions
-        List<Session> sessions = Arrays.asList(session);
+        // Arrange: Simulate the current schedule snapshot
         List<SessionDto> sessionDtos = Arrays.asList(sessionDto);
 
-        when(sessionService.findAll()).thenReturn(sessions);
-        when(sessionMapper.toDto(sessions)).thenReturn(sessionDtos);
+        when(sessionScheduleCache.get()).thenReturn(new SessionScheduleCache.Snapshot(1L, "\"1-1\"", 0L, sessionDtos));
 
         // Act
         ResponseEntity<?> response = sessionController.findAll();
@@ -141,7 +147,7 @@ public class SessionControllerTest {
     @Test
     public void testDelete() {
         // Arrange: Simulate deleting a session
-        when(sessionService.getById(1L)).thenReturn(session);
+        when(sessionService.exists(1L)).thenReturn(true);
 
         // Act
         ResponseEntity<?> response = sessionController.save("1");
@@ -154,7 +160,7 @@ public class SessionControllerTest {
     @Test
     public void testDelete_NotFound() {
         // Arrange: Simulate session not found
-        when(sessionService.getById(1L)).thenReturn(null);
+        when(sessionService.exists(1L)).thenReturn(false);
 
         // Act
         ResponseEntity<?> response = sessionController.save("1");
@@ -0,0 +1,93 @@
+package com.openclassrooms.starterjwt.integration.mapper;
+
+import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.mapper.SessionMapper;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class SessionMapperTest {
+
+    private static final int PARTICIPANTS = 40;
+
+    @Autowired
+    private SessionMapper sessionMapper; // Generated mapper wired with the real services
+
+    @Autowired
+    private TeacherRepository teacherRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory; // Gives access to the Hibernate statistics
+
+    private Teacher teacher;
+
+    private List<User> users;
+
+    @BeforeEach
+    void setUp() {
+        // GIVEN: A teacher and forty registered users
+        teacher = teacherRepository.save(Teacher.builder().firstName("Jane").lastName("Doe").build());
+
+        users = new ArrayList<>();
+        for (int i = 0; i < PARTICIPANTS; i++) {
+            users.add(new User("mapper" + i + "@studio.com", "Doe", "John", "password", false));
+        }
+        users = userRepository.saveAll(users);
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAllInBatch(users);
+        teacherRepository.delete(teacher);
+    }
+
+    @Test
+    void shouldResolveParticipantsWithOneQuery() {
+        // GIVEN: A DTO referencing every user in reverse order plus an unknown id
+        List<Long> ids = users.stream().map(User::getId).collect(Collectors.toList());
+        Collections.reverse(ids);
+        ids.add(-1L);
+
+        SessionDto sessionDto = new SessionDto();
+        sessionDto.setName("Session");
+        sessionDto.setDescription("Description");
+        sessionDto.setDate(new Date());
+        sessionDto.setTeacher_id(teacher.getId());
+        sessionDto.setUsers(ids);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // WHEN: Converting DTO to Entity
+        Session session = sessionMapper.toEntity(sessionDto);
+
+        // THEN: One statement for the teacher, one for all the participants
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(session.getUsers()).extracting(User::getId).containsExactlyElementsOf(ids.subList(0, PARTICIPANTS));
+    }
+}
@@ -0,0 +1,116 @@
+package com.openclassrooms.starterjwt.integration.migration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class SchemaMigrationTest {
+
+    // Dedicated in-memory database in MySQL mode, separate from the one used by the Spring tests
+    private static final String URL = "jdbc:h2:mem:migration;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    private Connection connection;
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection(URL, "sa", "");
+    }
+
+    @AfterEach
+    public void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+        connection.close();
+    }
+
+    @Test
+    public void whenMigrated_thenLookupsUseTheIndexes() throws SQLException {
+        // Arrange: Apply every migration
+        flyway("latest").migrate();
+
+        // Act & Assert: Membership check, sessions of a user and date ordering are index-backed
+        assertThat(explain("SELECT 1 FROM PARTICIPATE WHERE session_id = 1 AND user_id = 1"))
+                .containsIgnoringCase("PRIMARY_KEY");
+        // The foreign key may already carry an index on user_id, either one avoids a scan
+        assertThat(explain("SELECT session_id FROM PARTICIPATE WHERE user_id = 1"))
+                .containsIgnoringCase("USER_ID = 1 */")
+                .doesNotContainIgnoringCase("tableScan");
+        assertThat(explain("SELECT id FROM SESSIONS WHERE date > '2024-01-01' ORDER BY date, id"))
+                .containsIgnoringCase("IDX_SESSIONS_DATE_ID");
+        assertThat(explain("SELECT user_id FROM WAITLIST WHERE session_id = 1 ORDER BY id LIMIT 1"))
+                .containsIgnoringCase("SESSION_ID = 1 */")
+                .doesNotContainIgnoringCase("tableScan");
+    }
+
+    @Test
+    public void whenAddingCapacity_thenSeatsTakenMatchTheParticipants() throws SQLException {
+        // Arrange: The seeded administrator and a member participate before seats were counted
+        flyway("2").migrate();
+        execute("INSERT INTO SESSIONS (name, description, date) VALUES ('Session', 'Description', NOW())");
+        execute("INSERT INTO USERS (first_name, last_name, admin, email, password) VALUES "
+                + "('John', 'Doe', false, 'member@studio.com', 'password')");
+        execute("INSERT INTO PARTICIPATE (session_id, user_id) VALUES (1, 1), (1, 2)");
+
+        // Act
+        flyway("latest").migrate();
+
+        // Assert: The counter starts from the existing rows and the session stays unlimited
+        assertThat(count("SELECT seats_taken FROM SESSIONS WHERE id = 1")).isEqualTo(2);
+        assertThat(count("SELECT COUNT(*) FROM SESSIONS WHERE capacity IS NULL")).isEqualTo(1);
+    }
+
+    @Test
+    public void whenMigratingExistingDuplicates_thenOneRowPerPairIsKept() throws SQLException {
+        // Arrange: The initial schema with a duplicated participation
+        flyway("1").migrate();
+        execute("INSERT INTO SESSIONS (name, description, date) VALUES ('Session', 'Description', NOW())");
+        execute("INSERT INTO PARTICIPATE (session_id, user_id) VALUES (1, 1), (1, 1)");
+
+        // Act: Apply the key migration
+        flyway("2").migrate();
+
+        // Assert: The duplicate is gone and can no longer be inserted
+        assertThat(count("SELECT COUNT(*) FROM PARTICIPATE")).isEqualTo(1);
+        assertThrows(SQLException.class, () -> execute("INSERT INTO PARTICIPATE (session_id, user_id) VALUES (1, 1)"));
+    }
+
+    private Flyway flyway(String target) {
+        return Flyway.configure()
+                .dataSource(URL, "sa", "")
+                .target(target)
+                .load();
+    }
+
+    private String explain(String query) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("EXPLAIN " + query)) {
+            resultSet.next();
+            return resultSet.getString(1);
+        }
+    }
+
+    private int count(String query) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(query)) {
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+    }
+
+    private void execute(String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+}
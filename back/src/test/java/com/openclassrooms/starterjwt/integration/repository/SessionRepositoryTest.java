@@ -0,0 +1,166 @@
+package com.openclassrooms.starterjwt.integration.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.openclassrooms.starterjwt.dto.SessionSummary;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+
+@DataJpaTest // Configures the test to focus on JPA components
+@ActiveProfiles("test") // Uses the 'test' profile configuration for the database
+public class SessionRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager; // Provides an entity manager for direct interaction with the database
+
+    @Autowired
+    private SessionRepository sessionRepository; // Injects the SessionRepository for testing
+
+    private List<Long> expectedOrder;
+
+    @BeforeEach
+    public void setUp() {
+        // Arrange: Seven sessions over three dates, several sharing the same date
+        expectedOrder = new ArrayList<>();
+        long[] dates = {3000L, 1000L, 2000L, 1000L, 3000L, 2000L, 1000L};
+        List<Session> sessions = new ArrayList<>();
+        for (int i = 0; i < dates.length; i++) {
+            Session session = Session.builder()
+                    .name("Session " + i)
+                    .description("Description")
+                    .date(new Date(dates[i]))
+                    .build();
+            sessions.add(entityManager.persist(session));
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        sessions.sort((a, b) -> a.getDate().equals(b.getDate())
+                ? a.getId().compareTo(b.getId())
+                : a.getDate().compareTo(b.getDate()));
+        sessions.forEach(session -> expectedOrder.add(session.getId()));
+    }
+
+    @Test
+    public void whenScrollingWithCursor_thenEverySessionIsReturnedOnceInOrder() {
+        // Act: Walk through the sessions three at a time, starting from the first page
+        List<Session> page = sessionRepository.findAllByOrderByDateAscIdAsc(PageRequest.of(0, 3));
+        List<Long> visited = new ArrayList<>();
+        while (!page.isEmpty()) {
+            visited.addAll(page.stream().map(Session::getId).collect(Collectors.toList()));
+            Session last = page.get(page.size() - 1);
+            page = sessionRepository.findAfter(last.getDate(), last.getId(), PageRequest.of(0, 3));
+        }
+
+        // Assert: The keyset walk matches the (date, id) ordering without gaps or duplicates
+        assertThat(visited).isEqualTo(expectedOrder);
+    }
+
+    @Test
+    public void whenRequestingAnOffsetPage_thenItFollowsTheSameOrder() {
+        // Act: Fetch the second page of three
+        List<Long> page = sessionRepository.findAllByOrderByDateAscIdAsc(PageRequest.of(1, 3)).stream()
+                .map(Session::getId)
+                .collect(Collectors.toList());
+
+        // Assert
+        assertThat(page).isEqualTo(expectedOrder.subList(3, 6));
+    }
+
+    @Test
+    public void whenFindById_thenParticipantsAreNotLoaded() {
+        // Arrange: A session with two participants
+        Session session = sessionWithParticipants(2);
+
+        // Act: Load it with and without its participants
+        Session lazy = sessionRepository.findById(session.getId()).orElseThrow();
+        entityManager.clear();
+        Session withUsers = sessionRepository.findWithUsersById(session.getId()).orElseThrow();
+
+        // Assert: Only the entity graph query initializes the roster
+        assertThat(Hibernate.isInitialized(lazy.getUsers())).isFalse();
+        assertThat(Hibernate.isInitialized(withUsers.getUsers())).isTrue();
+        assertThat(withUsers.getUsers()).hasSize(2);
+    }
+
+    @Test
+    public void whenFindSummaries_thenParticipantsAreCounted() {
+        // Arrange: A session with three participants, after the seven empty ones
+        Session session = sessionWithParticipants(3);
+
+        // Act: Read every summary
+        List<SessionSummary> summaries = sessionRepository.findSummaries(PageRequest.of(0, 20));
+
+        // Assert: Same ordering as the entity queries, with the participant count
+        assertThat(summaries).extracting(SessionSummary::getId).startsWith(expectedOrder.toArray(new Long[0]));
+        SessionSummary last = summaries.get(summaries.size() - 1);
+        assertThat(last.getId()).isEqualTo(session.getId());
+        assertThat(last.getParticipantCount()).isEqualTo(3);
+        assertThat(last.getTeacher_id()).isNull();
+        assertThat(sessionRepository.findSummariesAfter(last.getDate(), last.getId(), PageRequest.of(0, 20))).isEmpty();
+    }
+
+    @Test
+    public void whenFindSummariesBetween_thenTheUpperBoundIsExcluded() {
+        // Act: The first two dates only
+        List<SessionSummary> summaries = sessionRepository.findSummariesBetween(new Date(1000L), new Date(3000L));
+
+        // Assert: Same ordering, sessions at the upper bound are left out
+        assertThat(summaries).extracting(SessionSummary::getId).isEqualTo(expectedOrder.subList(0, 5));
+    }
+
+    @Test
+    public void whenFindSummariesByUser_thenOnlyTheirSessionsAreSplitAroundNow() {
+        // Arrange: A member booked on a past and an upcoming session, another member on a third one
+        User member = entityManager.persist(new User("member@studio.com", "Doe", "John", "password", false));
+        User other = entityManager.persist(new User("other@studio.com", "Doe", "Jane", "password", false));
+        Session past = entityManager.persist(Session.builder().name("Past").description("Description")
+                .date(new Date(5000L)).users(new ArrayList<>(List.of(member, other))).build());
+        Session upcoming = entityManager.persist(Session.builder().name("Upcoming").description("Description")
+                .date(new Date(20000L)).users(new ArrayList<>(List.of(member))).build());
+        entityManager.persist(Session.builder().name("Not booked").description("Description")
+                .date(new Date(20000L)).users(new ArrayList<>(List.of(other))).build());
+        entityManager.flush();
+        entityManager.clear();
+
+        // Act: Split the member's bookings at t=10s
+        List<SessionSummary> after = sessionRepository.findUpcomingSummariesByUser(member.getId(), new Date(10000L), PageRequest.of(0, 20));
+        List<SessionSummary> before = sessionRepository.findPastSummariesByUser(member.getId(), new Date(10000L), PageRequest.of(0, 20));
+
+        // Assert: Each side holds one booking, counted with every participant
+        assertThat(after).extracting(SessionSummary::getId).containsExactly(upcoming.getId());
+        assertThat(before).extracting(SessionSummary::getId).containsExactly(past.getId());
+        assertThat(before.get(0).getParticipantCount()).isEqualTo(2);
+    }
+
+    private Session sessionWithParticipants(int count) {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            users.add(entityManager.persist(new User("roster" + i + "@studio.com", "Doe", "John", "password", false)));
+        }
+        Session session = entityManager.persist(Session.builder()
+                .name("Crowded session")
+                .description("Description")
+                .date(new Date(4000L))
+                .users(users)
+                .build());
+        entityManager.flush();
+        entityManager.clear();
+        return session;
+    }
+}
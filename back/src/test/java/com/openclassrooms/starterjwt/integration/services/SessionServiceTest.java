@@ -0,0 +1,320 @@
+package com.openclassrooms.starterjwt.integration.services;
+
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import com.openclassrooms.starterjwt.exception.NotFoundException;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.payload.request.ParticipationRequest;
+import com.openclassrooms.starterjwt.payload.response.ParticipationResult;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.services.ParticipationStatus;
+import com.openclassrooms.starterjwt.services.SessionService;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class SessionServiceTest {
+
+    private static final int PARTICIPANTS = 500;
+
+    @Autowired
+    private SessionService sessionService;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate; // Reads the PARTICIPATE rows directly
+
+    private Session session;
+
+    private List<User> users;
+
+    @BeforeEach
+    public void setUp() {
+        session = sessionRepository.save(Session.builder()
+                .name("Morning flow")
+                .description("Concurrent sign-ups")
+                .date(new Date())
+                .users(new ArrayList<>())
+                .build());
+
+        users = new ArrayList<>();
+        for (int i = 0; i < PARTICIPANTS; i++) {
+            users.add(new User("participant" + i + "@studio.com", "Doe", "John", "password", false));
+        }
+        users = userRepository.saveAll(users);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        jdbcTemplate.update("DELETE FROM PARTICIPATE WHERE session_id = ?", session.getId());
+        jdbcTemplate.update("DELETE FROM WAITLIST WHERE session_id = ?", session.getId());
+        sessionRepository.deleteById(session.getId());
+        userRepository.deleteAllInBatch(users);
+    }
+
+    @Test
+    public void testParticipate_ConcurrentSignUps() throws Exception {
+        // Arrange: Every user signs up at the same time
+        List<Callable<Void>> signUps = new ArrayList<>();
+        for (User user : users) {
+            signUps.add(() -> {
+                sessionService.participate(session.getId(), user.getId());
+                return null;
+            });
+        }
+
+        // Act
+        runConcurrently(signUps);
+
+        // Assert: No sign-up was lost
+        assertEquals(PARTICIPANTS, countParticipants());
+    }
+
+    @Test
+    public void testParticipate_ConcurrentDuplicates() throws Exception {
+        // Arrange: The same user signs up many times at once
+        Long userId = users.get(0).getId();
+        List<Callable<Void>> signUps = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            signUps.add(() -> {
+                sessionService.participate(session.getId(), userId);
+                return null;
+            });
+        }
+
+        // Act
+        List<Throwable> failures = runConcurrently(signUps);
+
+        // Assert: Exactly one row, every other attempt is rejected as a duplicate
+        assertEquals(1, countParticipants());
+        assertEquals(49, failures.size());
+        failures.forEach(failure -> assertTrue(failure instanceof BadRequestException, failure.toString()));
+    }
+
+    @Test
+    public void testParticipate_NotFound() {
+        // Act & Assert: Unknown session or user
+        assertThrows(NotFoundException.class, () -> sessionService.participate(-1L, users.get(0).getId()));
+        assertThrows(NotFoundException.class, () -> sessionService.participate(session.getId(), -1L));
+        assertEquals(0, countParticipants());
+    }
+
+    @Test
+    public void testNoLongerParticipate() {
+        // Arrange: Two participants
+        sessionService.participate(session.getId(), users.get(0).getId());
+        sessionService.participate(session.getId(), users.get(1).getId());
+
+        // Act: The first one cancels
+        sessionService.noLongerParticipate(session.getId(), users.get(0).getId());
+
+        // Assert: Only its row is removed, a second cancellation is rejected
+        assertEquals(1, countParticipants());
+        assertThrows(BadRequestException.class,
+                () -> sessionService.noLongerParticipate(session.getId(), users.get(0).getId()));
+        assertThrows(NotFoundException.class,
+                () -> sessionService.noLongerParticipate(-1L, users.get(1).getId()));
+    }
+
+    @Test
+    public void testParticipate_ConcurrentSignUpsOnALimitedSession() throws Exception {
+        // Arrange: Fifty seats and every user signing up at the same time
+        sessionRepository.save(session.setCapacity(50));
+        List<Callable<ParticipationStatus>> signUps = new ArrayList<>();
+        for (User user : users) {
+            signUps.add(() -> sessionService.participate(session.getId(), user.getId()));
+        }
+
+        // Act
+        List<Throwable> failures = runConcurrently(signUps);
+
+        // Assert: The session is exactly full and everyone else waits
+        assertTrue(failures.isEmpty(), failures.toString());
+        assertEquals(50, countParticipants());
+        assertEquals(50, seatsTaken());
+        assertEquals(PARTICIPANTS - 50, countWaitlisted());
+    }
+
+    @Test
+    public void testNoLongerParticipate_PromotesInArrivalOrder() {
+        // Arrange: One seat taken, two members waiting
+        sessionRepository.save(session.setCapacity(1));
+        assertEquals(ParticipationStatus.PARTICIPATING, sessionService.participate(session.getId(), users.get(0).getId()));
+        assertEquals(ParticipationStatus.WAITLISTED, sessionService.participate(session.getId(), users.get(1).getId()));
+        assertEquals(ParticipationStatus.WAITLISTED, sessionService.participate(session.getId(), users.get(2).getId()));
+        assertThrows(BadRequestException.class, () -> sessionService.participate(session.getId(), users.get(0).getId()));
+
+        // Act: The participant cancels, then the second in line gives up
+        sessionService.noLongerParticipate(session.getId(), users.get(0).getId());
+        sessionService.noLongerParticipate(session.getId(), users.get(2).getId());
+
+        // Assert: The first in line got the seat, nobody waits anymore
+        assertEquals(List.of(users.get(1).getId()), jdbcTemplate.queryForList(
+                "SELECT user_id FROM PARTICIPATE WHERE session_id = ?", Long.class, session.getId()));
+        assertEquals(1, seatsTaken());
+        assertEquals(0, countWaitlisted());
+    }
+
+    @Test
+    public void testParticipate_WaitsBehindTheWaitlist() {
+        // Arrange: A full session with one member waiting, then a seat is opened behind its back
+        sessionRepository.save(session.setCapacity(1));
+        assertEquals(ParticipationStatus.PARTICIPATING, sessionService.participate(session.getId(), users.get(0).getId()));
+        assertEquals(ParticipationStatus.WAITLISTED, sessionService.participate(session.getId(), users.get(1).getId()));
+        jdbcTemplate.update("UPDATE SESSIONS SET capacity = 2 WHERE id = ?", session.getId());
+
+        // Act
+        ParticipationStatus status = sessionService.participate(session.getId(), users.get(2).getId());
+
+        // Assert: The newcomer does not take the seat ahead of the waitlist
+        assertEquals(ParticipationStatus.WAITLISTED, status);
+        assertEquals(1, seatsTaken());
+        assertEquals(2, countWaitlisted());
+    }
+
+    @Test
+    public void testUpdate_PromotesInArrivalOrder() {
+        // Arrange: One seat taken, two members waiting
+        sessionRepository.save(session.setCapacity(1));
+        assertEquals(ParticipationStatus.PARTICIPATING, sessionService.participate(session.getId(), users.get(0).getId()));
+        assertEquals(ParticipationStatus.WAITLISTED, sessionService.participate(session.getId(), users.get(1).getId()));
+        assertEquals(ParticipationStatus.WAITLISTED, sessionService.participate(session.getId(), users.get(2).getId()));
+
+        // Act: A second seat is opened
+        Session updated = sessionService.update(session.getId(), Session.builder()
+                .name(session.getName())
+                .description(session.getDescription())
+                .date(session.getDate())
+                .capacity(2)
+                .users(new ArrayList<>(List.of(users.get(0))))
+                .build());
+
+        // Assert: The first in line got it, the second still waits
+        assertEquals(2, updated.getSeatsTaken());
+        assertEquals(List.of(users.get(0).getId(), users.get(1).getId()), jdbcTemplate.queryForList(
+                "SELECT user_id FROM PARTICIPATE WHERE session_id = ? ORDER BY user_id", Long.class, session.getId()));
+        assertEquals(2, seatsTaken());
+        assertEquals(1, countWaitlisted());
+    }
+
+    @Test
+    public void testUpdate_WithoutCapacityKeepsTheStoredOne() {
+        // Arrange: A full session with one member waiting
+        sessionRepository.save(session.setCapacity(1));
+        assertEquals(ParticipationStatus.PARTICIPATING, sessionService.participate(session.getId(), users.get(0).getId()));
+        assertEquals(ParticipationStatus.WAITLISTED, sessionService.participate(session.getId(), users.get(1).getId()));
+
+        // Act: The edit form renames the session without sending its capacity
+        Session updated = sessionService.update(session.getId(), Session.builder()
+                .name("Evening flow")
+                .description(session.getDescription())
+                .date(session.getDate())
+                .users(new ArrayList<>(List.of(users.get(0))))
+                .build());
+
+        // Assert: Still capped, nobody was promoted
+        assertEquals("Evening flow", updated.getName());
+        assertEquals(1, updated.getCapacity());
+        assertEquals(1, updated.getSeatsTaken());
+        assertEquals(1, seatsTaken());
+        assertEquals(1, countWaitlisted());
+    }
+
+    @Test
+    public void testParticipateAll_KeepsValidRows() {
+        // Arrange: A full session with one member waiting, then two more seats are opened
+        sessionRepository.save(session.setCapacity(2));
+        assertEquals(ParticipationStatus.PARTICIPATING, sessionService.participate(session.getId(), users.get(0).getId()));
+        assertEquals(ParticipationStatus.PARTICIPATING, sessionService.participate(session.getId(), users.get(1).getId()));
+        assertEquals(ParticipationStatus.WAITLISTED, sessionService.participate(session.getId(), users.get(2).getId()));
+        jdbcTemplate.update("UPDATE SESSIONS SET capacity = 4 WHERE id = ?", session.getId());
+        List<ParticipationRequest> checkIns = List.of(
+                new ParticipationRequest(session.getId(), users.get(3).getId()),
+                new ParticipationRequest(session.getId(), users.get(3).getId()),
+                new ParticipationRequest(session.getId(), users.get(2).getId()),
+                new ParticipationRequest(session.getId(), -1L),
+                new ParticipationRequest(-1L, users.get(4).getId()),
+                new ParticipationRequest(session.getId(), users.get(4).getId()),
+                new ParticipationRequest(session.getId(), users.get(5).getId()));
+
+        // Act
+        List<ParticipationResult> results = sessionService.participateAll(checkIns);
+
+        // Assert: The invalid items are reported, the waiting member and one newcomer fill the free seats
+        assertEquals(List.of(ParticipationStatus.PARTICIPATING, ParticipationStatus.ALREADY_REGISTERED,
+                ParticipationStatus.PARTICIPATING, ParticipationStatus.NOT_FOUND, ParticipationStatus.NOT_FOUND,
+                ParticipationStatus.WAITLISTED, ParticipationStatus.WAITLISTED),
+                results.stream().map(ParticipationResult::getStatus).collect(Collectors.toList()));
+        assertEquals(List.of(users.get(0).getId(), users.get(1).getId(), users.get(2).getId(), users.get(3).getId()),
+                jdbcTemplate.queryForList("SELECT user_id FROM PARTICIPATE WHERE session_id = ? ORDER BY user_id",
+                        Long.class, session.getId()));
+        assertEquals(4, seatsTaken());
+        assertEquals(List.of(users.get(4).getId(), users.get(5).getId()), jdbcTemplate.queryForList(
+                "SELECT user_id FROM WAITLIST WHERE session_id = ? ORDER BY id", Long.class, session.getId()));
+    }
+
+    private int seatsTaken() {
+        return jdbcTemplate.queryForObject("SELECT seats_taken FROM SESSIONS WHERE id = ?", Integer.class, session.getId());
+    }
+
+    private int countWaitlisted() {
+        return jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM WAITLIST WHERE session_id = ?", Integer.class, session.getId());
+    }
+
+    private int countParticipants() {
+        return jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM PARTICIPATE WHERE session_id = ?", Integer.class, session.getId());
+    }
+
+    private <T> List<Throwable> runConcurrently(List<Callable<T>> tasks) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<T>> futures = new ArrayList<>();
+        for (Callable<T> task : tasks) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return task.call();
+            }));
+        }
+        start.countDown();
+
+        List<Throwable> failures = new ArrayList<>();
+        for (Future<T> future : futures) {
+            try {
+                future.get(60, TimeUnit.SECONDS);
+            } catch (ExecutionException e) {
+                failures.add(e.getCause());
+            }
+        }
+        executor.shutdown();
+        return failures;
+    }
+}
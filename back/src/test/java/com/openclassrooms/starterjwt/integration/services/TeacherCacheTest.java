@@ -0,0 +1,138 @@
+package com.openclassrooms.starterjwt.integration.services;
+
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.services.SessionService;
+import com.openclassrooms.starterjwt.services.TeacherService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class TeacherCacheTest {
+
+    @Autowired
+    private TeacherService teacherService;
+
+    @Autowired
+    private TeacherRepository teacherRepository;
+
+    @Autowired
+    private SessionService sessionService;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate; // Removes the sign-up rows left by the tests
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory; // Gives access to the second-level cache and the statistics
+
+    @Autowired
+    private MeterRegistry meterRegistry; // Exposes the cache hit and miss counters
+
+    private Teacher teacher;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    public void setUp() {
+        teacher = teacherRepository.save(Teacher.builder().firstName("Jane").lastName("Doe").build());
+        entityManagerFactory.getCache().evictAll();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        teacherRepository.findById(teacher.getId()).ifPresent(teacherRepository::delete);
+    }
+
+    @Test
+    public void whenTeacherIsReadTwice_thenTheSecondReadIsServedFromTheCache() {
+        // Act
+        teacherService.findById(teacher.getId());
+        teacherService.findById(teacher.getId());
+        teacherService.findAll();
+        teacherService.findAll();
+
+        // Assert: One statement per first read, hits are visible in the metrics
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "teachers").tag("result", "hit")
+                .functionCounter().count()).isPositive();
+    }
+
+    @Test
+    public void whenTeacherIsWritten_thenCachedReadsSeeTheChange() {
+        // Arrange: Warm the entity and query caches
+        teacherService.findById(teacher.getId());
+        teacherService.findAll();
+
+        // Act: Rename, then delete the teacher
+        teacher.setLastName("Smith");
+        teacherRepository.save(teacher);
+        Teacher renamed = teacherService.findById(teacher.getId());
+        boolean listedAfterRename = teacherService.findAll().stream()
+                .anyMatch(t -> t.getId().equals(teacher.getId()) && "Smith".equals(t.getLastName()));
+        teacherRepository.deleteById(teacher.getId());
+
+        // Assert
+        assertThat(renamed.getLastName()).isEqualTo("Smith");
+        assertThat(listedAfterRename).isTrue();
+        assertThat(teacherService.findById(teacher.getId())).isNull();
+        assertThat(teacherService.findAll()).extracting(Teacher::getId).doesNotContain(teacher.getId());
+    }
+
+    @Test
+    public void whenMembersSignUpAndCancel_thenTeachersStayCached() {
+        // Arrange: A cached teacher and a session of theirs
+        Session session = sessionRepository.save(Session.builder()
+                .name("Morning flow")
+                .description("Teacher cache")
+                .date(new Date())
+                .teacher(teacher)
+                .users(new ArrayList<>())
+                .build());
+        User user = userRepository.save(new User("cache@studio.com", "Doe", "John", "password", false));
+        teacherService.findById(teacher.getId());
+
+        try {
+            // Act: The native sign-up and cancellation statements run
+            sessionService.participate(session.getId(), user.getId());
+            boolean cachedAfterSignUp = entityManagerFactory.getCache().contains(Teacher.class, teacher.getId());
+            sessionService.noLongerParticipate(session.getId(), user.getId());
+
+            // Assert: They do not touch the teachers region
+            assertThat(cachedAfterSignUp).isTrue();
+            assertThat(entityManagerFactory.getCache().contains(Teacher.class, teacher.getId())).isTrue();
+        } finally {
+            jdbcTemplate.update("DELETE FROM PARTICIPATE WHERE session_id = ?", session.getId());
+            sessionRepository.deleteById(session.getId());
+            userRepository.deleteById(user.getId());
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package com.openclassrooms.starterjwt.loadtest;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.web.client.DefaultResponseErrorHandler;
+import org.springframework.web.client.RestTemplate;
+
+import com.openclassrooms.starterjwt.SpringBootSecurityJwtApplication;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+
+/**
+ * Boots the application on the H2 test profile, seeds it and drives a mix of logins, schedule
+ * reads and sign-ups over HTTP from concurrent clients. Prints throughput and latency percentiles
+ * per endpoint, and exits with 1 when a p99 exceeds {@code loadtest.maxP99Ms}.
+ *
+ * <p>Run with {@code mvn -Ploadtest test}. Every setting is a system property, see
+ * {@link #property}. The histograms come from HdrHistogram, already on the classpath through
+ * Micrometer.
+ */
+public class LoadTestHarness {
+
+    private static final String PASSWORD = "loadtest!";
+
+    private final int users = property("loadtest.users", 500);
+    private final int teachers = property("loadtest.teachers", 20);
+    private final int sessions = property("loadtest.sessions", 200);
+    private final int clients = property("loadtest.clients", 32);
+    private final int warmupSeconds = property("loadtest.warmupSeconds", 10);
+    private final int durationSeconds = property("loadtest.durationSeconds", 60);
+    private final int maxP99Ms = property("loadtest.maxP99Ms", 0);
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    private List<User> members;
+
+    private List<Long> sessionIds;
+
+    private RestTemplate restTemplate;
+
+    private String baseUrl;
+
+    private volatile boolean running = true;
+
+    public static void main(String[] args) throws Exception {
+        System.exit(new LoadTestHarness().run() ? 0 : 1);
+    }
+
+    private boolean run() throws InterruptedException {
+        // HttpURLConnection keeps only 5 idle connections per host by default
+        System.setProperty("http.maxConnections", String.valueOf(clients));
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(SpringBootSecurityJwtApplication.class)
+            .profiles("test")
+            // Arguments, so that they win over the SQL logging of application-test.properties
+            .run("--server.port=0", "--spring.jpa.show-sql=false", "--logging.level.root=WARN",
+                "--logging.level.org.hibernate.SQL=WARN", "--spring.jpa.properties.hibernate.generate_statistics=false");
+        try {
+            seed(context);
+            baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+            restTemplate = new RestTemplate();
+            restTemplate.setErrorHandler(new DefaultResponseErrorHandler() {
+                @Override
+                public boolean hasError(ClientHttpResponse response) {
+                    return false;
+                }
+            });
+
+            ExecutorService executor = Executors.newFixedThreadPool(clients);
+            for (int i = 0; i < clients; i++) {
+                User member = members.get(i % members.size());
+                executor.submit(() -> drive(member));
+            }
+
+            System.out.printf("Warming up for %ds with %d clients%n", warmupSeconds, clients);
+            TimeUnit.SECONDS.sleep(warmupSeconds);
+            endpoints.values().forEach(Endpoint::reset);
+            long start = System.nanoTime();
+            TimeUnit.SECONDS.sleep(durationSeconds);
+            double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+            running = false;
+            executor.shutdown();
+            executor.awaitTermination(30, TimeUnit.SECONDS);
+
+            return report(elapsedSeconds);
+        } finally {
+            context.close();
+        }
+    }
+
+    private void seed(ConfigurableApplicationContext context) {
+        String hash = context.getBean(PasswordEncoder.class).encode(PASSWORD);
+        List<User> seededUsers = new ArrayList<>();
+        for (int i = 0; i < users; i++) {
+            seededUsers.add(new User("load" + i + "@studio.com", "Doe", "John", hash, false));
+        }
+        members = context.getBean(UserRepository.class).saveAll(seededUsers);
+
+        List<Teacher> seededTeachers = new ArrayList<>();
+        for (int i = 0; i < teachers; i++) {
+            seededTeachers.add(Teacher.builder().firstName("Jane").lastName("Doe" + i).build());
+        }
+        seededTeachers = context.getBean(TeacherRepository.class).saveAll(seededTeachers);
+
+        // A month of classes, one in four with few enough seats to exercise the waitlist
+        LocalDateTime firstClass = LocalDateTime.now().plusHours(1);
+        List<Session> seededSessions = new ArrayList<>();
+        for (int i = 0; i < sessions; i++) {
+            seededSessions.add(Session.builder()
+                .name("Class " + i)
+                .description("Seeded by the load test")
+                .date(Date.from(firstClass.plusMinutes(i * 30L * 24 * 60 / sessions).atZone(ZoneId.systemDefault()).toInstant()))
+                .teacher(seededTeachers.get(i % seededTeachers.size()))
+                .capacity(i % 4 == 0 ? Math.max(1, clients / 4) : null)
+                .users(new ArrayList<>())
+                .build());
+        }
+        sessionIds = new ArrayList<>();
+        context.getBean(SessionRepository.class).saveAll(seededSessions).forEach(session -> sessionIds.add(session.getId()));
+
+        System.out.printf("Seeded %d users, %d teachers and %d sessions%n", users, teachers, sessions);
+    }
+
+    private void drive(User member) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Set<Long> joined = new HashSet<>();
+        String token = null;
+        while (running) {
+            try {
+                int roll = random.nextInt(100);
+                if (token == null || roll < 5) {
+                    token = login(member);
+                } else if (roll < 40) {
+                    call("GET /api/session", HttpMethod.GET, "/api/session", token);
+                } else if (roll < 60) {
+                    call("GET /api/session/summary", HttpMethod.GET, "/api/session/summary?size=20", token);
+                } else if (roll < 80) {
+                    call("GET /api/session/{id}", HttpMethod.GET, "/api/session/" + randomSession(random), token);
+                } else if (joined.isEmpty() || (roll < 90 && joined.size() < sessionIds.size())) {
+                    Long sessionId = randomSession(random);
+                    // Only an accepted or waitlisted sign-up can be cancelled later, failures are counted as errors
+                    if (!joined.contains(sessionId) && call("POST /api/session/{id}/participate/{userId}", HttpMethod.POST,
+                            "/api/session/" + sessionId + "/participate/" + member.getId(), token).is2xxSuccessful()) {
+                        joined.add(sessionId);
+                    }
+                } else {
+                    Long sessionId = joined.iterator().next();
+                    joined.remove(sessionId);
+                    call("DELETE /api/session/{id}/participate/{userId}", HttpMethod.DELETE,
+                        "/api/session/" + sessionId + "/participate/" + member.getId(), token);
+                }
+            } catch (RuntimeException e) {
+                endpoint("transport errors").errors.increment();
+            }
+        }
+    }
+
+    private String login(User member) {
+        Map<String, String> body = new HashMap<>();
+        body.put("email", member.getEmail());
+        body.put("password", PASSWORD);
+
+        long start = System.nanoTime();
+        ResponseEntity<Map<String, Object>> response = restTemplate.exchange(baseUrl + "/api/auth/login", HttpMethod.POST,
+            new HttpEntity<>(body), new ParameterizedTypeReference<Map<String, Object>>() { });
+        endpoint("POST /api/auth/login").record(start, response.getStatusCodeValue());
+
+        return response.getStatusCode().is2xxSuccessful() ? (String) response.getBody().get("token") : null;
+    }
+
+    private HttpStatus call(String name, HttpMethod method, String path, String token) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(token);
+
+        long start = System.nanoTime();
+        ResponseEntity<String> response = restTemplate.exchange(baseUrl + path, method, new HttpEntity<>(headers), String.class);
+        endpoint(name).record(start, response.getStatusCodeValue());
+        return response.getStatusCode();
+    }
+
+    private Long randomSession(ThreadLocalRandom random) {
+        return sessionIds.get(random.nextInt(sessionIds.size()));
+    }
+
+    private Endpoint endpoint(String name) {
+        return endpoints.computeIfAbsent(name, key -> new Endpoint());
+    }
+
+    private boolean report(double elapsedSeconds) {
+        boolean withinBudget = true;
+        System.out.printf("%n%-48s %9s %9s %7s %9s %9s %9s%n", "endpoint", "count", "req/s", "errors", "p50 ms", "p99 ms", "p999 ms");
+        for (Map.Entry<String, Endpoint> entry : new TreeMap<>(endpoints).entrySet()) {
+            Histogram latencies = entry.getValue().latencies;
+            double p99 = latencies.getValueAtPercentile(99) / 1000.0;
+            System.out.printf("%-48s %9d %9.1f %7d %9.2f %9.2f %9.2f%n",
+                entry.getKey(),
+                latencies.getTotalCount(),
+                latencies.getTotalCount() / elapsedSeconds,
+                entry.getValue().errors.sum(),
+                latencies.getValueAtPercentile(50) / 1000.0,
+                p99,
+                latencies.getValueAtPercentile(99.9) / 1000.0);
+            if (maxP99Ms > 0 && p99 > maxP99Ms) {
+                withinBudget = false;
+            }
+        }
+        for (Map.Entry<String, Endpoint> entry : new TreeMap<>(endpoints).entrySet()) {
+            if (!entry.getValue().errorStatuses.isEmpty()) {
+                System.out.printf("%n%s errors by status: %s", entry.getKey(), new TreeMap<>(entry.getValue().errorStatuses));
+            }
+        }
+        System.out.println();
+        if (!withinBudget) {
+            System.out.printf("%nAt least one endpoint exceeded the p99 budget of %d ms%n", maxP99Ms);
+        }
+        return withinBudget;
+    }
+
+    private static int property(String name, int defaultValue) {
+        return Integer.getInteger(name, defaultValue);
+    }
+
+    private static class Endpoint {
+        // Microseconds, up to a minute with three significant digits
+        private final Histogram latencies = new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(1), 3);
+
+        private final LongAdder errors = new LongAdder();
+
+        private final Map<Integer, LongAdder> errorStatuses = new ConcurrentHashMap<>();
+
+        void record(long startNanos, int status) {
+            latencies.recordValue(Math.min(latencies.getHighestTrackableValue(),
+                TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos)));
+            // 202 is a waitlisted sign-up
+            if (status >= 300) {
+                errors.increment();
+                errorStatuses.computeIfAbsent(status, key -> new LongAdder()).increment();
+            }
+        }
+
+        void reset() {
+            latencies.reset();
+            errors.reset();
+            errorStatuses.clear();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.openclassrooms.starterjwt.unit.config;
+
+import com.openclassrooms.starterjwt.config.DataSourcePoolConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DataSourcePoolConfigTest {
+
+    @Test
+    void whenNoSizeIsConfigured_thenThePoolFollowsTheCpuCount() {
+        // Arrange
+        HikariDataSource dataSource = new HikariDataSource();
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        // Act
+        DataSourcePoolConfig.dataSourcePoolSizer(0).postProcessBeforeInitialization(dataSource, "dataSource");
+
+        // Assert: A fixed-size pool of two connections per core plus one
+        assertEquals(cores * 2 + 1, dataSource.getMaximumPoolSize());
+        assertEquals(cores * 2 + 1, dataSource.getMinimumIdle());
+    }
+
+    @Test
+    void whenASizeIsConfigured_thenItWins() {
+        // Arrange
+        HikariDataSource dataSource = new HikariDataSource();
+        BeanPostProcessor sizer = DataSourcePoolConfig.dataSourcePoolSizer(7);
+
+        // Act
+        sizer.postProcessBeforeInitialization(dataSource, "dataSource");
+
+        // Assert
+        assertEquals(7, dataSource.getMaximumPoolSize());
+        assertEquals(7, dataSource.getMinimumIdle());
+    }
+}
@@ -0,0 +1,110 @@
+package com.openclassrooms.starterjwt.unit.config;
+
+import com.openclassrooms.starterjwt.config.StatementAccountingDataSource;
+import com.openclassrooms.starterjwt.config.StatementAccountingFilter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StatementAccountingFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private StatementAccountingDataSource dataSource;
+
+    private MockHttpServletRequest request;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:accounting;DB_CLOSE_DELAY=-1");
+        dataSource = new StatementAccountingDataSource(h2, 200);
+
+        // Outside of a request: not accounted
+        execute("CREATE TABLE TEACHERS (id INT PRIMARY KEY, name VARCHAR(20))",
+                "INSERT INTO TEACHERS VALUES (1, 'Jane'), (2, 'John'), (3, 'Jim')");
+
+        request = new MockHttpServletRequest("GET", "/api/teacher");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE,
+                new HandlerMethod(this, StatementAccountingFilterTest.class.getDeclaredMethod("setUp")));
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    void whenRequestRunsStatements_thenTheyAreRecordedAgainstItsHandler() throws Exception {
+        // Arrange: A budget of two statements
+        StatementAccountingFilter filter = new StatementAccountingFilter(meterRegistry, 2);
+
+        // Act: Read three rows, update them, then count them
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            try {
+                execute("SELECT * FROM TEACHERS", "UPDATE TEACHERS SET name = 'Jo'", "SELECT COUNT(*) FROM TEACHERS");
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        // Assert: Three statements, seven rows and the budget exceeded once
+        String handler = "StatementAccountingFilterTest.setUp";
+        assertEquals(3, meterRegistry.get("http.server.requests.jdbc.statements").tag("handler", handler).summary().totalAmount());
+        assertEquals(7, meterRegistry.get("http.server.requests.jdbc.rows").tag("handler", handler).summary().totalAmount());
+        assertEquals(1, meterRegistry.get("http.server.requests.jdbc").tag("handler", handler).timer().count());
+        assertEquals(1, meterRegistry.get("http.server.requests.over.query.budget").tag("handler", handler).counter().count());
+    }
+
+    @Test
+    void whenRequestStaysWithinBudget_thenNothingIsFlagged() throws Exception {
+        // Arrange: The default budget
+        StatementAccountingFilter filter = new StatementAccountingFilter(meterRegistry, 20);
+
+        // Act: A request without any statement
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> { });
+
+        // Assert: Recorded, but not over budget
+        assertEquals(0, meterRegistry.get("http.server.requests.jdbc.statements").summary().totalAmount());
+        assertNull(meterRegistry.find("http.server.requests.over.query.budget").counter());
+    }
+
+    @Test
+    void whenStatementIsLogged_thenLiteralsAreRedacted() {
+        // Act & Assert: Strings and numbers are hidden, identifiers are kept
+        assertEquals("SELECT t1_0.id FROM USERS t1_0 WHERE t1_0.email = ? AND t1_0.id IN (?, ?) AND score > ?",
+                StatementAccountingDataSource.redact(
+                        "SELECT t1_0.id FROM USERS t1_0 WHERE t1_0.email = 'o''neil@studio.com' AND t1_0.id IN (4, 25) AND score > 1.5"));
+    }
+
+    private void execute(String... statements) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            for (String sql : statements) {
+                try (Statement statement = connection.createStatement()) {
+                    if (statement.execute(sql)) {
+                        try (ResultSet resultSet = statement.getResultSet()) {
+                            while (resultSet.next()) {
+                                // Consumes the rows
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
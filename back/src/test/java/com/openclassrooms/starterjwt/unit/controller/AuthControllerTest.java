@@ -1,7 +1,10 @@
 package com.openclassrooms.starterjwt.unit.controller;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -13,12 +16,13 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
-import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.exception.ServiceUnavailableException;
 import com.openclassrooms.starterjwt.payload.request.LoginRequest;
 import com.openclassrooms.starterjwt.payload.request.SignupRequest;
 import com.openclassrooms.starterjwt.payload.response.JwtResponse;
@@ -72,10 +76,6 @@ public class AuthControllerTest {
         // Mock JWT token generation
         when(jwtUtils.generateJwtToken(authentication)).thenReturn("fake-jwt-token");
 
-        // Mock finding the user in the repository
-        User user = new User();
-        user.setAdmin(false);
-        when(userRepository.findByEmail("yoga@studio.com")).thenReturn(java.util.Optional.of(user));
 
         // When: Call the authenticateUser method
         ResponseEntity<?> response = authController.authenticateUser(loginRequest);
@@ -86,6 +86,32 @@ public class AuthControllerTest {
         assertEquals("yoga@studio.com", jwtResponse.getUsername());
         assertEquals("fake-jwt-token", jwtResponse.getToken());
         assertEquals(false, jwtResponse.getAdmin());
+
+        // The admin flag comes from the authenticated principal, the user is not loaded again
+        verify(userRepository, never()).findByEmail(any());
+    }
+
+    // Test for the authenticateUser method (admin flag carried by the principal)
+    @Test
+    public void testAuthenticateUser_Admin() {
+        // Given: An authenticated administrator
+        LoginRequest loginRequest = new LoginRequest();
+        loginRequest.setEmail("admin@studio.com");
+        loginRequest.setPassword("Mypassword8$");
+
+        UserDetailsImpl userDetails = new UserDetailsImpl(
+                2L, "admin@studio.com", "Jane", "Doe", true, "password");
+        Authentication authentication = new UsernamePasswordAuthenticationToken(userDetails, null);
+        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+                .thenReturn(authentication);
+        when(jwtUtils.generateJwtToken(authentication)).thenReturn("fake-jwt-token");
+
+        // When: Call the authenticateUser method
+        ResponseEntity<?> response = authController.authenticateUser(loginRequest);
+
+        // Then: The response reports the administrator
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(true, ((JwtResponse) response.getBody()).getAdmin());
     }
 
     // Test for the registerUser method (successful registration)
@@ -130,4 +156,34 @@ public class AuthControllerTest {
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
         assertEquals("Error: Email is already taken!", ((MessageResponse) response.getBody()).getMessage());
     }
+
+    // Test for the backpressure handler (password hashing pool saturated)
+    @Test
+    public void testHandleServiceUnavailable_ReturnsRetryAfter() {
+        // When: The password hashing pool rejects the request
+        ResponseEntity<MessageResponse> response =
+                authController.handleServiceUnavailable(new ServiceUnavailableException(2));
+
+        // Then: Verify the status code and the retry delay
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("2", response.getHeaders().getFirst("Retry-After"));
+    }
+
+    // Test for the authenticateUser method (hashing pool saturated behind the provider)
+    @Test
+    public void testAuthenticateUser_WrappedServiceUnavailable() {
+        // Given: The provider wraps the rejection of the password hashing pool
+        LoginRequest loginRequest = new LoginRequest();
+        loginRequest.setEmail("unknown@studio.com");
+        loginRequest.setPassword("Mypassword8$");
+        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+                .thenThrow(new InternalAuthenticationServiceException("Rejected", new ServiceUnavailableException(3)));
+
+        // When: Call the authenticateUser method
+        ServiceUnavailableException exception =
+                assertThrows(ServiceUnavailableException.class, () -> authController.authenticateUser(loginRequest));
+
+        // Then: The rejection reaches the 503 handler with its retry delay
+        assertEquals(3, exception.getRetryAfterSeconds());
+    }
 }
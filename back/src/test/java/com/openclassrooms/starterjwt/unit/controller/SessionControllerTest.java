@@ -2,8 +2,16 @@ package com.openclassrooms.starterjwt.unit.controller;
 
 import com.openclassrooms.starterjwt.controllers.SessionController;
 import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.dto.SessionSummary;
 import com.openclassrooms.starterjwt.mapper.SessionMapper;
 import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.payload.request.ParticipationRequest;
+import com.openclassrooms.starterjwt.payload.request.SessionCursor;
+import com.openclassrooms.starterjwt.payload.response.ParticipationResult;
+import com.openclassrooms.starterjwt.payload.response.SessionPageResponse;
+import com.openclassrooms.starterjwt.services.ParticipationStatus;
+import com.openclassrooms.starterjwt.services.SeatAvailabilityBroadcaster;
+import com.openclassrooms.starterjwt.services.SessionScheduleCache;
 import com.openclassrooms.starterjwt.services.SessionService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -14,10 +22,18 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
 import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class) // Enables Mockito support in JUnit 5
@@ -29,6 +45,12 @@ public class SessionControllerTest {
     @Mock
     private SessionMapper sessionMapper; // Mocking SessionMapper
 
+    @Mock
+    private SessionScheduleCache sessionScheduleCache; // Mocking the cached schedule snapshot
+
+    @Mock
+    private SeatAvailabilityBroadcaster seatAvailabilityBroadcaster; // Mocking the live seat updates
+
     @InjectMocks
     private SessionController sessionController; // Injecting mocks into SessionController
 
@@ -52,13 +74,16 @@ public class SessionControllerTest {
         // Simulate an existing session
         when(sessionService.getById(1L)).thenReturn(session);
         when(sessionMapper.toDto(session)).thenReturn(sessionDto);
+        when(sessionScheduleCache.lastModified(1L)).thenReturn(60_000L);
 
         // Call the method under test
         ResponseEntity<?> response = sessionController.findById("1");
 
-        // Verify the response status and body
+        // Verify the response status and body, the schedule snapshot is not built for one session
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(sessionDto, response.getBody());
+        assertEquals(60_000L, response.getHeaders().getLastModified());
+        verify(sessionScheduleCache, never()).get();
     }
 
     @Test
@@ -84,17 +109,17 @@ public class SessionControllerTest {
 
     @Test
     public void testFindAll() {
-        // Simulate a list of sessions
-        List<Session> sessions = Arrays.asList(session);
-        when(sessionService.findAll()).thenReturn(sessions);
-        when(sessionMapper.toDto(sessions)).thenReturn(Arrays.asList(sessionDto));
+        // Simulate the current snapshot of the schedule
+        when(sessionScheduleCache.get()).thenReturn(new SessionScheduleCache.Snapshot(1L, "\"1-1\"", 0L, Arrays.asList(sessionDto)));
 
         // Call the method under test
         ResponseEntity<?> response = sessionController.findAll();
 
-        // Verify the response status and body
+        // Verify the response is served from the snapshot without touching the database
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(Arrays.asList(sessionDto), response.getBody());
+        assertEquals("\"1-1\"", response.getHeaders().getETag());
+        verifyNoInteractions(sessionService);
     }
 
     @Test
@@ -139,7 +164,7 @@ public class SessionControllerTest {
     @Test
     public void testDelete_Success() {
         // Simulate a session exists before deletion
-        when(sessionService.getById(1L)).thenReturn(session);
+        when(sessionService.exists(1L)).thenReturn(true);
 
         // Call the delete method
         ResponseEntity<?> response = sessionController.save("1");
@@ -152,7 +177,7 @@ public class SessionControllerTest {
     @Test
     public void testDelete_NotFound() {
         // Simulate a session not found
-        when(sessionService.getById(1L)).thenReturn(null);
+        when(sessionService.exists(1L)).thenReturn(false);
 
         // Call the delete method
         ResponseEntity<?> response = sessionController.save("1");
@@ -180,6 +205,18 @@ public class SessionControllerTest {
         verify(sessionService, times(1)).participate(1L, 1L);
     }
 
+    @Test
+    public void testParticipate_Waitlisted() {
+        // Simulate a full session
+        when(sessionService.participate(1L, 1L)).thenReturn(ParticipationStatus.WAITLISTED);
+
+        // Call the method under test
+        ResponseEntity<?> response = sessionController.participate("1", "1");
+
+        // Verify the sign-up is accepted but not confirmed
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+    }
+
     @Test
     public void testParticipate_BadRequest() {
         // Call the participate method with an invalid ID
@@ -189,6 +226,33 @@ public class SessionControllerTest {
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
     }
 
+    @Test
+    public void testParticipateAll_Success() {
+        // Simulate the per-item results of the service
+        List<ParticipationResult> results = List.of(new ParticipationResult(1L, 2L, ParticipationStatus.PARTICIPATING));
+        when(sessionService.participateAll(List.of(new ParticipationRequest(1L, 2L)))).thenReturn(results);
+
+        // Call the session-scoped variant
+        ResponseEntity<?> response = sessionController.participateAll("1", List.of(2L));
+
+        // Verify the results are returned as is
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(results, response.getBody());
+    }
+
+    @Test
+    public void testParticipateAll_BadRequest() {
+        // Call the method with an invalid session ID, an empty list and an incomplete item
+        List<ParticipationRequest> incomplete = new ArrayList<>();
+        incomplete.add(new ParticipationRequest(1L, null));
+
+        // Verify every call is rejected before reaching the service
+        assertEquals(HttpStatus.BAD_REQUEST, sessionController.participateAll("invalid", List.of(2L)).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, sessionController.participateAll(new ArrayList<>()).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, sessionController.participateAll(incomplete).getStatusCode());
+        verify(sessionService, never()).participateAll(any());
+    }
+
     @Test
     public void testNoLongerParticipate_Success() {
         // Call the noLongerParticipate method
@@ -207,4 +271,106 @@ public class SessionControllerTest {
         // Verify that the response status is BAD_REQUEST
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
     }
+
+    @Test
+    public void testFindPage_FullPageReturnsNextCursor() {
+        // Simulate a full first page
+        session.setDate(new Date(1700000000000L));
+        List<Session> sessions = Arrays.asList(session);
+        when(sessionService.findPage(0, 1)).thenReturn(sessions);
+        when(sessionMapper.toDto(sessions)).thenReturn(Arrays.asList(sessionDto));
+
+        // Call the method under test
+        ResponseEntity<?> response = sessionController.findPage(1, 0, null);
+
+        // Verify the items and the cursor pointing after the last session
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        SessionPageResponse<?> body = (SessionPageResponse<?>) response.getBody();
+        assertEquals(Arrays.asList(sessionDto), body.getItems());
+        assertEquals(SessionCursor.of(session), SessionCursor.decode(body.getNextCursor()));
+    }
+
+    @Test
+    public void testFindPage_WithCursor() {
+        // Simulate the last, partial page after a cursor
+        String cursor = new SessionCursor(new Date(1700000000000L), 1L).encode();
+        when(sessionService.findAfter(new Date(1700000000000L), 1L, 10)).thenReturn(Collections.emptyList());
+        when(sessionMapper.toDto(Collections.<Session>emptyList())).thenReturn(Collections.emptyList());
+
+        // Call the method under test
+        ResponseEntity<?> response = sessionController.findPage(10, 0, cursor);
+
+        // Verify that there is no next cursor
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNull(((SessionPageResponse<?>) response.getBody()).getNextCursor());
+    }
+
+    @Test
+    public void testFindPage_BadRequest() {
+        // Verify that invalid sizes, pages and cursors are rejected
+        assertEquals(HttpStatus.BAD_REQUEST, sessionController.findPage(0, 0, null).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, sessionController.findPage(101, 0, null).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, sessionController.findPage(10, -1, null).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, sessionController.findPage(10, 0, "not-a-cursor").getStatusCode());
+        verifyNoInteractions(sessionService);
+    }
+
+    @Test
+    public void testFindSummaries() {
+        // Simulate a full page of summaries
+        SessionSummary summary = new SessionSummary(1L, "Session 1", new Date(1700000000000L), 2L, 5);
+        when(sessionService.findSummaries(0, 1)).thenReturn(List.of(summary));
+
+        // Call the method under test
+        ResponseEntity<?> response = sessionController.findSummaries(1, 0, null);
+
+        // Verify the summaries are returned without mapping entities
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        SessionPageResponse<?> body = (SessionPageResponse<?>) response.getBody();
+        assertEquals(List.of(summary), body.getItems());
+        assertEquals(new SessionCursor(summary.getDate(), 1L), SessionCursor.decode(body.getNextCursor()));
+        verifyNoInteractions(sessionMapper);
+    }
+
+    @Test
+    public void testFindSummaries_WithCursor() {
+        // Simulate the summaries after a cursor
+        String cursor = new SessionCursor(new Date(1700000000000L), 1L).encode();
+        when(sessionService.findSummariesAfter(new Date(1700000000000L), 1L, 20)).thenReturn(List.of());
+
+        // Call the method under test
+        ResponseEntity<?> response = sessionController.findSummaries(20, 0, cursor);
+
+        // Verify that there is no next cursor
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNull(((SessionPageResponse<?>) response.getBody()).getNextCursor());
+        assertEquals(HttpStatus.BAD_REQUEST, sessionController.findSummaries(0, 0, null).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, sessionController.findSummaries(20, 0, "not-a-cursor").getStatusCode());
+    }
+
+    @Test
+    public void testFindCalendar() {
+        // Simulate a week with a single session
+        LocalDate monday = LocalDate.of(2024, 1, 1);
+        SortedMap<LocalDate, List<SessionSummary>> calendar = new TreeMap<>();
+        calendar.put(monday, List.of(new SessionSummary(1L, "Session 1", new Date(), 2L, 5)));
+        when(sessionService.findCalendar(monday, monday.plusDays(6))).thenReturn(calendar);
+
+        // Call the method under test
+        ResponseEntity<?> response = sessionController.findCalendar(monday, monday.plusDays(6));
+
+        // Verify the grouped sessions are returned
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(calendar, response.getBody());
+    }
+
+    @Test
+    public void testFindCalendar_InvalidRange() {
+        LocalDate monday = LocalDate.of(2024, 1, 1);
+
+        // Verify that reversed and oversized ranges are rejected
+        assertEquals(HttpStatus.BAD_REQUEST, sessionController.findCalendar(monday, monday.minusDays(1)).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, sessionController.findCalendar(monday, monday.plusDays(42)).getStatusCode());
+        verifyNoInteractions(sessionService);
+    }
 }
@@ -2,7 +2,9 @@ package com.openclassrooms.starterjwt.unit.controller;
 
 import com.openclassrooms.starterjwt.controllers.UserController;
 import com.openclassrooms.starterjwt.mapper.UserMapper;
+import com.openclassrooms.starterjwt.dto.SessionSummary;
 import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.services.SessionService;
 import com.openclassrooms.starterjwt.services.UserService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -17,6 +19,9 @@ import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import java.util.Collections;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
@@ -30,6 +35,9 @@ public class UserControllerTest {
     @Mock
     private UserMapper userMapper; // Mocking the UserMapper to simulate mapping operations without needing actual DTO transformations.
 
+    @Mock
+    private SessionService sessionService; // Mocking the SessionService to simulate the sessions booked by a user.
+
     @InjectMocks
     private UserController userController;
 
@@ -156,4 +164,83 @@ public class UserControllerTest {
         verify(userService, never()).findById(any());
         verify(userService, never()).delete(any());
     }
+
+    @Test
+    public void testFindSessions_Upcoming() { // This test verifies that the upcoming sessions of a user are returned by default.
+        // Arrange
+        List<SessionSummary> summaries = Collections.singletonList(new SessionSummary());
+        when(userService.findById(userId)).thenReturn(user);
+        authenticateAs(userEmail);
+        when(sessionService.findSummariesByUser(userId, true, 0, 20)).thenReturn(summaries);
+
+        // Act
+        ResponseEntity<?> response = userController.findSessions(userId.toString(), "upcoming", 20, 0);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(summaries, response.getBody());
+    }
+
+    @Test
+    public void testFindSessions_Past() { // This test verifies that the past filter is forwarded to the service.
+        // Arrange
+        when(userService.findById(userId)).thenReturn(user);
+        authenticateAs(userEmail);
+        when(sessionService.findSummariesByUser(userId, false, 1, 10)).thenReturn(Collections.emptyList());
+
+        // Act
+        ResponseEntity<?> response = userController.findSessions(userId.toString(), "past", 10, 1);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(sessionService, times(1)).findSummariesByUser(userId, false, 1, 10);
+    }
+
+    @Test
+    public void testFindSessions_BadRequest() { // This test verifies that invalid ids, filters and page sizes are rejected.
+        // Act & Assert
+        assertEquals(HttpStatus.BAD_REQUEST, userController.findSessions("invalidId", "upcoming", 20, 0).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, userController.findSessions(userId.toString(), "soon", 20, 0).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, userController.findSessions(userId.toString(), "upcoming", 101, 0).getStatusCode());
+        verify(sessionService, never()).findSummariesByUser(any(), anyBoolean(), anyInt(), anyInt());
+    }
+
+    @Test
+    public void testFindSessions_OtherUser() { // This test verifies that a member cannot list the bookings of another member.
+        // Arrange
+        when(userService.findById(userId)).thenReturn(user);
+        authenticateAs("another@example.com");
+
+        // Act
+        ResponseEntity<?> response = userController.findSessions(userId.toString(), "upcoming", 20, 0);
+
+        // Assert
+        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
+        verify(sessionService, never()).findSummariesByUser(any(), anyBoolean(), anyInt(), anyInt());
+    }
+
+    @Test
+    public void testFindSessions_UserNotFound() { // This test verifies that the bookings of an unknown user are not found.
+        // Arrange
+        when(userService.findById(userId)).thenReturn(null);
+
+        // Act
+        ResponseEntity<?> response = userController.findSessions(userId.toString(), "upcoming", 20, 0);
+
+        // Assert
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        verify(sessionService, never()).findSummariesByUser(any(), anyBoolean(), anyInt(), anyInt());
+    }
+
+    private void authenticateAs(String email) {
+        UserDetails userDetails = mock(UserDetails.class);
+        when(userDetails.getUsername()).thenReturn(email);
+
+        Authentication authentication = mock(Authentication.class);
+        when(authentication.getPrincipal()).thenReturn(userDetails);
+
+        SecurityContext securityContext = mock(SecurityContext.class);
+        when(securityContext.getAuthentication()).thenReturn(authentication);
+        SecurityContextHolder.setContext(securityContext);
+    }
 }
@@ -21,6 +21,8 @@ import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class) // Enables Mockito for testing
@@ -57,7 +59,7 @@ class SessionMapperTest {
 
         // Mocking service behavior
         when(teacherService.findById(anyLong())).thenReturn(teacher);
-        when(userService.findById(anyLong())).thenReturn(user);
+        when(userService.findAllById(List.of(1L))).thenReturn(List.of(user));
 
         // WHEN: Converting DTO to Entity
         Session mappedSession = sessionMapper.toEntity(sessionDto);
@@ -70,6 +72,27 @@ class SessionMapperTest {
         assertThat(mappedSession.getUsers()).containsExactly(user);
     }
 
+    @Test
+    void shouldResolveAllParticipantsWithOneCall() {
+        // GIVEN: A SessionDto referencing three users, one of them unknown
+        User first = new User();
+        first.setId(2L);
+        User second = new User();
+        second.setId(1L);
+
+        SessionDto sessionDto = new SessionDto();
+        sessionDto.setUsers(List.of(2L, 99L, 1L));
+
+        when(userService.findAllById(List.of(2L, 99L, 1L))).thenReturn(List.of(first, second));
+
+        // WHEN: Converting DTO to Entity
+        Session mappedSession = sessionMapper.toEntity(sessionDto);
+
+        // THEN: Users are resolved in one batch, never one by one
+        assertThat(mappedSession.getUsers()).containsExactly(first, second);
+        verify(userService, never()).findById(anyLong());
+    }
+
     @Test
     void shouldReturnNullWhenSessionHasNoTeacher() {
         // GIVEN: A Session with no teacher assigned
@@ -127,7 +150,7 @@ class SessionMapperTest {
 
         // Mocking services
         when(teacherService.findById(anyLong())).thenReturn(teacher);
-        when(userService.findById(anyLong())).thenReturn(user);
+        when(userService.findAllById(List.of(1L))).thenReturn(List.of(user));
 
         // WHEN: Converting list of DTOs to list of entities
         List<Session> mappedSessions = sessionMapper.toEntity(List.of(sessionDto));
@@ -0,0 +1,90 @@
+package com.openclassrooms.starterjwt.unit.security;
+
+import com.openclassrooms.starterjwt.exception.ServiceUnavailableException;
+import com.openclassrooms.starterjwt.security.BoundedPasswordEncoder;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BoundedPasswordEncoderTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final ExecutorService callers = Executors.newFixedThreadPool(2); // Simulated servlet threads
+
+    private BoundedPasswordEncoder encoder;
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+        if (encoder != null) {
+            encoder.shutdown();
+        }
+    }
+
+    @Test
+    void whenPasswordIsEncoded_thenItMatchesAndLatencyIsRecorded() {
+        // Arrange: A real BCrypt delegate on a single worker
+        encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(4), meterRegistry, 1, 10, 1);
+
+        // Act: Hash then verify the password
+        String hash = encoder.encode("password");
+
+        // Assert: The hash is usable and both operations are timed
+        assertTrue(encoder.matches("password", hash));
+        assertFalse(encoder.matches("wrong", hash));
+        assertEquals(1, meterRegistry.get("auth.password.hash").tag("operation", "encode").timer().count());
+        assertEquals(2, meterRegistry.get("auth.password.hash").tag("operation", "matches").timer().count());
+    }
+
+    @Test
+    void whenQueueIsFull_thenRequestIsRejected() throws Exception {
+        // Arrange: A delegate that blocks until released, one worker and a single queue slot
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder blocking = new BCryptPasswordEncoder(4) {
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return true;
+            }
+        };
+        encoder = new BoundedPasswordEncoder(blocking, meterRegistry, 1, 1, 5);
+
+        // Occupy the worker, then the queue slot
+        callers.submit(() -> encoder.matches("a", "b"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        callers.submit(() -> encoder.matches("a", "b"));
+        waitForQueueDepth(1);
+
+        // Act & Assert: The next request fails fast with the retry delay
+        ServiceUnavailableException exception =
+                assertThrows(ServiceUnavailableException.class, () -> encoder.matches("a", "b"));
+        assertEquals(5, exception.getRetryAfterSeconds());
+
+        release.countDown();
+    }
+
+    private void waitForQueueDepth(double depth) throws InterruptedException {
+        for (int i = 0; i < 500 && meterRegistry.get("auth.password.queue").gauge().value() < depth; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(depth, meterRegistry.get("auth.password.queue").gauge().value());
+    }
+}
@@ -0,0 +1,90 @@
+package com.openclassrooms.starterjwt.unit.security;
+
+import com.openclassrooms.starterjwt.security.services.UserDetailsCache;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+import com.openclassrooms.starterjwt.security.services.UserDetailsServiceImpl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class) // Enables Mockito support for JUnit 5
+public class UserDetailsCacheTest {
+
+    @Mock
+    private UserDetailsServiceImpl userDetailsService; // Mock for the database-backed lookup
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private UserDetailsCache userDetailsCache;
+
+    private UserDetailsImpl userDetails;
+
+    @BeforeEach
+    void setUp() {
+        // Initialize a cache holding at most two principals for one minute
+        meterRegistry = new SimpleMeterRegistry();
+        userDetailsCache = new UserDetailsCache(userDetailsService, meterRegistry, 2, 60000);
+
+        userDetails = UserDetailsImpl.builder()
+                .id(1L)
+                .username("test@example.com")
+                .firstName("John")
+                .lastName("Doe")
+                .password("password123")
+                .build();
+    }
+
+    @Test
+    void whenLoadedTwice_thenDatabaseIsHitOnce() {
+        // Arrange: The database lookup returns the test principal
+        when(userDetailsService.loadUserByUsername("test@example.com")).thenReturn(userDetails);
+
+        // Act: Resolve the same email twice
+        UserDetails first = userDetailsCache.loadUserByUsername("test@example.com");
+        UserDetails second = userDetailsCache.loadUserByUsername("test@example.com");
+
+        // Assert: The second call is served from the cache and counted as a hit
+        assertSame(first, second, "The cached principal should be returned");
+        verify(userDetailsService, times(1)).loadUserByUsername("test@example.com");
+        assertEquals(1, userDetailsCache.stats().hitCount(), "One hit should be recorded");
+        assertEquals(1, userDetailsCache.stats().missCount(), "One miss should be recorded");
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count(),
+                "The hit should be exported as a metric");
+    }
+
+    @Test
+    void whenUserIsEvicted_thenNextLoadHitsDatabase() {
+        // Arrange: The principal is cached
+        when(userDetailsService.loadUserByUsername("test@example.com")).thenReturn(userDetails);
+        userDetailsCache.loadUserByUsername("test@example.com");
+
+        // Act: Evict the user by id, then resolve it again
+        userDetailsCache.evict(1L);
+        userDetailsCache.loadUserByUsername("test@example.com");
+
+        // Assert: The database was queried again
+        verify(userDetailsService, times(2)).loadUserByUsername("test@example.com");
+    }
+
+    @Test
+    void whenUserIsUnknown_thenExceptionIsNotCached() {
+        // Arrange: The database lookup fails
+        when(userDetailsService.loadUserByUsername("wrong@example.com"))
+                .thenThrow(new UsernameNotFoundException("User Not Found with email: wrong@example.com"));
+
+        // Act & Assert: Each lookup propagates the exception
+        assertThrows(UsernameNotFoundException.class, () -> userDetailsCache.loadUserByUsername("wrong@example.com"));
+        assertThrows(UsernameNotFoundException.class, () -> userDetailsCache.loadUserByUsername("wrong@example.com"));
+        verify(userDetailsService, times(2)).loadUserByUsername("wrong@example.com");
+    }
+}
@@ -2,6 +2,7 @@ package com.openclassrooms.starterjwt.unit.security;
 
 import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
 import com.openclassrooms.starterjwt.security.services.UserDetailsServiceImpl;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -60,6 +61,7 @@ public class UserDetailsServiceImplTest {
         assertNotNull(userDetails, "User details should not be null");
         assertEquals(testUser.getEmail(), userDetails.getUsername(), "User email should match");
         assertEquals(testUser.getPassword(), userDetails.getPassword(), "User password should match");
+        assertEquals(false, ((UserDetailsImpl) userDetails).getAdmin(), "Admin flag should be carried by the principal");
 
         // Verify that the repository method was called once
         verify(userRepository, times(1)).findByEmail(testEmail);
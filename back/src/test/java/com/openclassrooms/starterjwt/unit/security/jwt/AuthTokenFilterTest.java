@@ -2,7 +2,14 @@ package com.openclassrooms.starterjwt.unit.security.jwt;
 
 import com.openclassrooms.starterjwt.security.jwt.AuthTokenFilter;
 import com.openclassrooms.starterjwt.security.jwt.JwtUtils;
-import com.openclassrooms.starterjwt.security.services.UserDetailsServiceImpl;
+import com.openclassrooms.starterjwt.security.jwt.JwtValidationResult;
+import com.openclassrooms.starterjwt.security.jwt.TokenDenyList;
+import com.openclassrooms.starterjwt.security.jwt.VerifiedTokenCache;
+import com.openclassrooms.starterjwt.security.services.UserDetailsCache;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -20,6 +27,7 @@ import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
 import java.io.IOException;
 import java.util.Collections;
+import java.util.Date;
 
 import static org.mockito.Mockito.*;
 
@@ -32,7 +40,13 @@ class AuthTokenFilterTest {
     private JwtUtils jwtUtils; // Mock for JWT utility class
 
     @Mock
-    private UserDetailsServiceImpl userDetailsService; // Mock for user details service
+    private VerifiedTokenCache verifiedTokenCache; // Mock for the verified token cache
+
+    @Mock
+    private UserDetailsCache userDetailsCache; // Mock for the cached user details lookup
+
+    @Mock
+    private TokenDenyList tokenDenyList; // Mock for the revoked users list
 
     @Mock
     private FilterChain filterChain; // Mock for servlet filter chain
@@ -58,9 +72,8 @@ class AuthTokenFilterTest {
         request.addHeader("Authorization", "Bearer " + token); // Set Authorization header
 
         // Mock JWT validation and user retrieval behavior
-        when(jwtUtils.validateJwtToken(token)).thenReturn(true);
-        when(jwtUtils.getUserNameFromJwtToken(token)).thenReturn(username);
-        when(userDetailsService.loadUserByUsername(username)).thenReturn(userDetails);
+        when(verifiedTokenCache.validate(token)).thenReturn(JwtValidationResult.valid(Jwts.claims().setSubject(username)));
+        when(userDetailsCache.loadUserByUsername(username)).thenReturn(userDetails);
 
         // Act: Execute the filter (calls doFilterInternal)
         authTokenFilter.doFilter(request, response, filterChain);
@@ -76,6 +89,50 @@ class AuthTokenFilterTest {
         verify(filterChain, times(1)).doFilter(request, response);
     }
 
+    @Test
+    void doFilter_TokenWithUserClaims_ShouldAuthenticateWithoutLookup() throws ServletException, IOException {
+        // Arrange: Prepare a token carrying the user details as claims
+        String token = "claimsToken";
+        Claims claims = Jwts.claims().setSubject("testUser").setIssuedAt(new Date());
+        UserDetailsImpl userDetails = UserDetailsImpl.builder().id(1L).username("testUser").admin(false).build();
+
+        request.addHeader("Authorization", "Bearer " + token);
+
+        when(verifiedTokenCache.validate(token)).thenReturn(JwtValidationResult.valid(claims));
+        when(jwtUtils.hasUserDetailsClaims(claims)).thenReturn(true);
+        when(jwtUtils.getUserDetailsFromClaims(claims)).thenReturn(userDetails);
+
+        // Act: Execute the filter
+        authTokenFilter.doFilter(request, response, filterChain);
+
+        // Assert: The principal comes from the claims and no user lookup happened
+        assert SecurityContextHolder.getContext().getAuthentication().getPrincipal().equals(userDetails);
+        verify(userDetailsCache, never()).loadUserByUsername(any());
+        verify(filterChain, times(1)).doFilter(request, response);
+    }
+
+    @Test
+    void doFilter_RevokedTokenWithUserClaims_ShouldNotAuthenticateUser() throws ServletException, IOException {
+        // Arrange: Prepare a claims-carrying token whose user has been revoked
+        String token = "revokedToken";
+        Claims claims = Jwts.claims().setSubject("testUser").setIssuedAt(new Date());
+        UserDetailsImpl userDetails = UserDetailsImpl.builder().id(1L).username("testUser").build();
+
+        request.addHeader("Authorization", "Bearer " + token);
+
+        when(verifiedTokenCache.validate(token)).thenReturn(JwtValidationResult.valid(claims));
+        when(jwtUtils.hasUserDetailsClaims(claims)).thenReturn(true);
+        when(jwtUtils.getUserDetailsFromClaims(claims)).thenReturn(userDetails);
+        when(tokenDenyList.isRevoked(eq(1L), any())).thenReturn(true);
+
+        // Act: Execute the filter
+        authTokenFilter.doFilter(request, response, filterChain);
+
+        // Assert: The user is not authenticated but the chain still continues
+        assert SecurityContextHolder.getContext().getAuthentication() == null;
+        verify(filterChain, times(1)).doFilter(request, response);
+    }
+
     @Test
     void doFilter_InvalidToken_ShouldNotAuthenticateUser() throws ServletException, IOException {
         // Arrange: Prepare an invalid token
@@ -84,7 +141,7 @@ class AuthTokenFilterTest {
         request.addHeader("Authorization", "Bearer " + token);
 
         // Mock JWT validation failure
-        when(jwtUtils.validateJwtToken(token)).thenReturn(false);
+        when(verifiedTokenCache.validate(token)).thenReturn(JwtValidationResult.invalid(JwtValidationResult.Reason.MALFORMED));
 
         // Act: Execute the filter
         authTokenFilter.doFilter(request, response, filterChain);
@@ -107,4 +164,38 @@ class AuthTokenFilterTest {
         // Verify that the filter continues execution
         verify(filterChain, times(1)).doFilter(request, response);
     }
+
+    @Test
+    void doFilter_TokenParameterOnTheSeatStream_ShouldAuthenticateUser() throws ServletException, IOException {
+        // Arrange: An EventSource passes the token in the query string
+        String token = "streamToken";
+        UserDetails userDetails = new User("testUser", "password", Collections.emptyList());
+        request.setMethod("GET");
+        request.setRequestURI("/api/session/stream");
+        request.setParameter("access_token", token);
+
+        when(verifiedTokenCache.validate(token)).thenReturn(JwtValidationResult.valid(Jwts.claims().setSubject("testUser")));
+        when(userDetailsCache.loadUserByUsername("testUser")).thenReturn(userDetails);
+
+        // Act
+        authTokenFilter.doFilter(request, response, filterChain);
+
+        // Assert
+        assert SecurityContextHolder.getContext().getAuthentication().getPrincipal().equals(userDetails);
+    }
+
+    @Test
+    void doFilter_TokenParameterElsewhere_ShouldNotAuthenticateUser() throws ServletException, IOException {
+        // Arrange: The parameter is only read on the seat stream
+        request.setMethod("GET");
+        request.setRequestURI("/api/session");
+        request.setParameter("access_token", "streamToken");
+
+        // Act
+        authTokenFilter.doFilter(request, response, filterChain);
+
+        // Assert
+        assert SecurityContextHolder.getContext().getAuthentication() == null;
+        verify(verifiedTokenCache, never()).validate(any());
+    }
 }
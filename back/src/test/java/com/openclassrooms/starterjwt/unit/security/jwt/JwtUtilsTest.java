@@ -10,8 +10,11 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 
 import com.openclassrooms.starterjwt.security.jwt.JwtUtils;
+import com.openclassrooms.starterjwt.security.jwt.JwtValidationResult;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
 
 import io.jsonwebtoken.*;
 
@@ -81,4 +84,62 @@ public class JwtUtilsTest {
         assertFalse(jwtUtils.validateJwtToken(""), "Empty token should not be valid");
         assertFalse(jwtUtils.validateJwtToken(null), "Null token should not be valid");
     }
+
+    @Test
+    void testGenerateJwtToken_WithoutEmbeddedClaims() {
+        // Arrange: Authentication holding a full principal, claims embedding disabled by default
+        UserDetailsImpl principal = UserDetailsImpl.builder()
+            .id(42L).username("testUser").firstName("John").lastName("Doe").admin(true).build();
+
+        // Act: Generate the token and read its claims back
+        String token = jwtUtils.generateJwtToken(new UsernamePasswordAuthenticationToken(principal, null));
+        Claims claims = jwtUtils.getClaimsFromJwtToken(token);
+
+        // Assert: Only the subject is carried
+        assertEquals("testUser", claims.getSubject());
+        assertFalse(jwtUtils.hasUserDetailsClaims(claims), "User details should not be embedded");
+    }
+
+    @Test
+    void testGenerateJwtToken_WithEmbeddedClaims() {
+        // Arrange: Enable claims embedding
+        ReflectionTestUtils.setField(jwtUtils, "jwtEmbedClaims", true);
+        UserDetailsImpl principal = UserDetailsImpl.builder()
+            .id(42L).username("testUser").firstName("John").lastName("Doe").admin(true).build();
+
+        // Act: Generate the token and rebuild the principal from its claims
+        String token = jwtUtils.generateJwtToken(new UsernamePasswordAuthenticationToken(principal, null));
+        Claims claims = jwtUtils.getClaimsFromJwtToken(token);
+        UserDetailsImpl rebuilt = jwtUtils.getUserDetailsFromClaims(claims);
+
+        // Assert: The principal is rebuilt without a database lookup
+        assertTrue(jwtUtils.hasUserDetailsClaims(claims), "User details should be embedded");
+        assertEquals(42L, rebuilt.getId());
+        assertEquals("testUser", rebuilt.getUsername());
+        assertEquals("John", rebuilt.getFirstName());
+        assertEquals("Doe", rebuilt.getLastName());
+        assertTrue(rebuilt.getAdmin());
+        assertNull(rebuilt.getPassword(), "The password should never be carried by the token");
+    }
+
+    @Test
+    void testValidate_ValidToken_ReturnsClaims() {
+        // Act: Parse and verify the token once
+        JwtValidationResult result = jwtUtils.validate(validToken);
+
+        // Assert: The verified claims are returned
+        assertTrue(result.isValid(), "Valid token should be accepted");
+        assertEquals(JwtValidationResult.Reason.VALID, result.getReason());
+        assertEquals("testUser", result.getClaims().getSubject());
+    }
+
+    @Test
+    void testValidate_InvalidTokens_ReturnReason() {
+        // Act & Assert: Each rejected token carries the reason and no claims
+        assertEquals(JwtValidationResult.Reason.INVALID_SIGNATURE, jwtUtils.validate(validToken + "invalidPart").getReason());
+        assertEquals(JwtValidationResult.Reason.MALFORMED, jwtUtils.validate("this.is.not.a.jwt").getReason());
+        assertEquals(JwtValidationResult.Reason.EXPIRED, jwtUtils.validate(expiredToken).getReason());
+        assertEquals(JwtValidationResult.Reason.EMPTY, jwtUtils.validate("").getReason());
+        assertNull(jwtUtils.validate(expiredToken).getClaims(), "Rejected token should not expose claims");
+    }
 }
@@ -0,0 +1,51 @@
+package com.openclassrooms.starterjwt.unit.security.jwt;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Date;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.openclassrooms.starterjwt.security.jwt.TokenDenyList;
+
+public class TokenDenyListTest {
+
+    private TokenDenyList tokenDenyList;
+
+    @BeforeEach
+    void setUp() {
+        // Entries live as long as a token (1 hour)
+        tokenDenyList = new TokenDenyList(3600000, 100);
+    }
+
+    @Test
+    void whenUserIsNotRevoked_thenTokenIsAccepted() {
+        // Act & Assert: Unknown users and tokens without id are never revoked
+        assertFalse(tokenDenyList.isRevoked(1L, new Date()));
+        assertFalse(tokenDenyList.isRevoked(null, new Date()));
+    }
+
+    @Test
+    void whenUserIsRevoked_thenOlderTokensAreRejected() {
+        // Arrange: A token issued before the revocation
+        Date issuedAt = new Date(System.currentTimeMillis() - 60000);
+
+        // Act: Revoke the user
+        tokenDenyList.revoke(1L);
+
+        // Assert: The older token is rejected, other users are unaffected
+        assertTrue(tokenDenyList.isRevoked(1L, issuedAt));
+        assertTrue(tokenDenyList.isRevoked(1L, null), "A token without issue date cannot be trusted");
+        assertFalse(tokenDenyList.isRevoked(2L, issuedAt));
+    }
+
+    @Test
+    void whenTokenIsIssuedAfterRevocation_thenItIsAccepted() {
+        // Arrange: Revoke the user
+        tokenDenyList.revoke(1L);
+
+        // Act & Assert: A token issued later is accepted
+        assertFalse(tokenDenyList.isRevoked(1L, new Date(System.currentTimeMillis() + 60000)));
+    }
+}
@@ -0,0 +1,92 @@
+package com.openclassrooms.starterjwt.unit.security.jwt;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Date;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.openclassrooms.starterjwt.security.jwt.JwtUtils;
+import com.openclassrooms.starterjwt.security.jwt.JwtValidationResult;
+import com.openclassrooms.starterjwt.security.jwt.VerifiedTokenCache;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class VerifiedTokenCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private VerifiedTokenCache verifiedTokenCache;
+
+    private String validToken;
+
+    @BeforeEach
+    void setUp() {
+        // Real JwtUtils so that signatures are actually verified
+        JwtUtils jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", "testSecret");
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 3600000);
+
+        meterRegistry = new SimpleMeterRegistry();
+        verifiedTokenCache = new VerifiedTokenCache(jwtUtils, meterRegistry, 100);
+
+        validToken = Jwts.builder()
+            .setSubject("testUser")
+            .setIssuedAt(new Date())
+            .setExpiration(new Date(System.currentTimeMillis() + 3600000))
+            .signWith(SignatureAlgorithm.HS512, "testSecret")
+            .compact();
+    }
+
+    @Test
+    void whenTokenIsValidatedTwice_thenSecondCallHitsCache() {
+        // Act: Validate the same token twice
+        JwtValidationResult first = verifiedTokenCache.validate(validToken);
+        JwtValidationResult second = verifiedTokenCache.validate(validToken);
+
+        // Assert: The claims of the first verification are reused
+        assertTrue(first.isValid());
+        assertTrue(second.isValid());
+        assertSame(first.getClaims(), second.getClaims(), "The cached claims should be returned");
+        assertEquals(1, verifiedTokenCache.stats().hitCount(), "One hit should be recorded");
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count(),
+            "The hit should be exported as a metric");
+    }
+
+    @Test
+    void whenTokenIsTampered_thenItIsVerifiedAndRejected() {
+        // Arrange: The genuine token is cached
+        verifiedTokenCache.validate(validToken);
+
+        // Act: Validate a token with an altered signature
+        JwtValidationResult result = verifiedTokenCache.validate(validToken + "tampered");
+
+        // Assert: The tampered token never hits the cache
+        assertFalse(result.isValid(), "Tampered token should be rejected");
+        assertEquals(JwtValidationResult.Reason.INVALID_SIGNATURE, result.getReason());
+        assertEquals(0, verifiedTokenCache.stats().hitCount(), "No hit should be recorded");
+    }
+
+    @Test
+    void whenTokenIsRejected_thenItIsNotCached() {
+        // Arrange: An expired token
+        String expiredToken = Jwts.builder()
+            .setSubject("testUser")
+            .setExpiration(new Date(System.currentTimeMillis() - 1000))
+            .signWith(SignatureAlgorithm.HS512, "testSecret")
+            .compact();
+
+        // Act: Validate it twice
+        verifiedTokenCache.validate(expiredToken);
+        JwtValidationResult result = verifiedTokenCache.validate(expiredToken);
+
+        // Assert: Each call is a full, failing verification
+        assertEquals(JwtValidationResult.Reason.EXPIRED, result.getReason());
+        assertEquals(0, verifiedTokenCache.stats().hitCount(), "Rejected tokens should not be cached");
+        assertEquals(JwtValidationResult.Reason.EMPTY, verifiedTokenCache.validate("").getReason());
+    }
+}
@@ -0,0 +1,139 @@
+package com.openclassrooms.starterjwt.unit.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.starterjwt.dto.SeatAvailability;
+import com.openclassrooms.starterjwt.exception.ServiceUnavailableException;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.services.SeatAvailabilityBroadcaster;
+import com.openclassrooms.starterjwt.services.SessionChangedEvent;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class) // Enables Mockito support for JUnit 5
+public class SeatAvailabilityBroadcasterTest {
+
+    @Mock
+    private SessionRepository sessionRepository; // Mock for the seat count query
+
+    private SeatAvailabilityBroadcaster broadcaster;
+
+    @BeforeEach
+    public void setUp() {
+        // Two connections at most, retry after three seconds, a write may take 50 ms
+        broadcaster = new SeatAvailabilityBroadcaster(sessionRepository, new ObjectMapper(), new SimpleMeterRegistry(),
+                2, 60000, 3, 1, 50, 4);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        broadcaster.shutdown();
+    }
+
+    @Test
+    public void testSubscribe_ConnectionCap() {
+        // Arrange: Fill every slot
+        broadcaster.subscribe();
+        broadcaster.subscribe();
+
+        // Act & Assert: The next client is told when to come back
+        ServiceUnavailableException exception = assertThrows(ServiceUnavailableException.class, broadcaster::subscribe);
+        assertEquals(3, exception.getRetryAfterSeconds());
+        assertEquals(2, broadcaster.getConnections());
+    }
+
+    @Test
+    public void testFlush_CoalescesChangesPerSession() {
+        // Arrange: A burst of sign-ups on session 1 and one on session 2, with a client listening
+        broadcaster.subscribe();
+        when(sessionRepository.findSeatAvailability(any())).thenReturn(List.of(new SeatAvailability(1L, 3, 10)));
+        for (int i = 0; i < 3; i++) {
+            broadcaster.onSessionChanged(new SessionChangedEvent(1L));
+        }
+        broadcaster.onSessionChanged(new SessionChangedEvent(2L));
+
+        // Act: Two flushes in a row
+        broadcaster.flush();
+        broadcaster.flush();
+
+        // Assert: One query for both sessions, nothing left for the second flush
+        verify(sessionRepository, times(1)).findSeatAvailability(argThat(ids -> ids.size() == 2
+                && ids.containsAll(List.of(1L, 2L))));
+    }
+
+    @Test
+    public void testFlush_WithoutClients() {
+        // Arrange: A change but nobody listening
+        broadcaster.onSessionChanged(new SessionChangedEvent(1L));
+
+        // Act
+        broadcaster.flush();
+
+        // Assert: The counts are not even read
+        verifyNoInteractions(sessionRepository);
+    }
+
+    @Test
+    public void testFlush_DisconnectsAStalledClient() throws Exception {
+        // Arrange: One client that stops reading after its first event, and a healthy one
+        CountDownLatch stalled = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<SseEmitter> created = new ArrayList<>();
+        broadcaster = new SeatAvailabilityBroadcaster(sessionRepository, new ObjectMapper(), new SimpleMeterRegistry(),
+                2, 60000, 3, 2, 50, 4) {
+            @Override
+            protected SseEmitter createEmitter(long timeoutMs) {
+                SseEmitter emitter = created.isEmpty() ? new SseEmitter(timeoutMs) {
+                    @Override
+                    public void send(SseEventBuilder builder) throws IOException {
+                        stalled.countDown();
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                } : new SseEmitter(timeoutMs);
+                created.add(emitter);
+                return emitter;
+            }
+        };
+        broadcaster.subscribe();
+        broadcaster.subscribe();
+        when(sessionRepository.findSeatAvailability(any())).thenReturn(List.of(new SeatAvailability(1L, 3, 10)));
+
+        try {
+            // Act: The first event blocks the stalled client's writer, the next flush comes after the timeout
+            broadcaster.onSessionChanged(new SessionChangedEvent(1L));
+            long started = System.currentTimeMillis();
+            broadcaster.flush();
+            assertTrue(stalled.await(5, TimeUnit.SECONDS));
+            Thread.sleep(100);
+            broadcaster.onSessionChanged(new SessionChangedEvent(1L));
+            broadcaster.flush();
+
+            // Assert: The scheduler was not held up, only the stalled client was dropped
+            assertTrue(System.currentTimeMillis() - started < 1000);
+            assertEquals(1, broadcaster.getConnections());
+        } finally {
+            release.countDown();
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.openclassrooms.starterjwt.unit.services;
+
+import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.mapper.SessionMapper;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.services.SessionChangedEvent;
+import com.openclassrooms.starterjwt.services.SessionScheduleCache;
+import com.openclassrooms.starterjwt.services.SessionService;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class) // Enables Mockito support for JUnit 5
+public class SessionScheduleCacheTest {
+
+    @Mock
+    private SessionService sessionService; // Mock for the schedule queries
+
+    @Mock
+    private SessionMapper sessionMapper; // Mock for the DTO mapping
+
+    private SessionScheduleCache sessionScheduleCache;
+
+    private final List<Session> sessions = List.of(new Session().setId(1L), new Session().setId(2L));
+
+    @BeforeEach
+    public void setUp() {
+        // Refreshes run on the calling thread unless a test queues them
+        sessionScheduleCache = new SessionScheduleCache(sessionService, sessionMapper, Runnable::run);
+
+        // The schedule maps to two DTOs
+        lenient().when(sessionService.findAll()).thenReturn(sessions);
+        lenient().when(sessionMapper.toDto(sessions)).thenReturn(new ArrayList<>(List.of(dto(1L, "Flow"), dto(2L, "Yin"))));
+    }
+
+    @Test
+    public void testGet_BuildsTheSnapshotOnce() {
+        // Act: Read the schedule twice
+        SessionScheduleCache.Snapshot first = sessionScheduleCache.get();
+        SessionScheduleCache.Snapshot second = sessionScheduleCache.get();
+
+        // Assert: The same immutable snapshot is shared, the database is read once
+        assertSame(first, second);
+        assertThrows(UnsupportedOperationException.class, () -> first.getSessions().add(new SessionDto()));
+        verify(sessionService, times(1)).findAll();
+    }
+
+    @Test
+    public void testOnSessionChanged_ReloadsOnlyTheChangedSession() {
+        // Arrange: A snapshot is built before the write
+        Session changed = new Session().setId(2L);
+        when(sessionService.getById(2L)).thenReturn(changed);
+        when(sessionMapper.toDto(changed)).thenReturn(dto(2L, "Yin, renamed"));
+        SessionScheduleCache.Snapshot before = sessionScheduleCache.get();
+
+        // Act: A write to the second session is committed
+        sessionScheduleCache.onSessionChanged(new SessionChangedEvent(2L));
+        SessionScheduleCache.Snapshot after = sessionScheduleCache.get();
+
+        // Assert: Only that session was read again, in place, under a newer version
+        assertEquals(before.getVersion() + 1, after.getVersion());
+        assertNotEquals(before.getETag(), after.getETag());
+        assertEquals(List.of("Flow", "Yin, renamed"), names(after));
+        assertEquals(List.of("Flow", "Yin"), names(before));
+        verify(sessionService, times(1)).findAll();
+    }
+
+    @Test
+    public void testOnSessionChanged_AddsAndRemovesSessions() {
+        // Arrange: A third session was created and the first one deleted
+        Session created = new Session().setId(3L);
+        when(sessionService.getById(3L)).thenReturn(created);
+        when(sessionMapper.toDto(created)).thenReturn(dto(3L, "Hatha"));
+        when(sessionService.getById(1L)).thenReturn(null);
+        sessionScheduleCache.get();
+
+        // Act
+        sessionScheduleCache.onSessionChanged(new SessionChangedEvent(3L));
+        sessionScheduleCache.onSessionChanged(new SessionChangedEvent(1L));
+
+        // Assert
+        assertEquals(List.of("Yin", "Hatha"), names(sessionScheduleCache.get()));
+        verify(sessionService, times(1)).findAll();
+    }
+
+    @Test
+    public void testOnSessionChanged_LeavesTheRefreshToTheWorker() {
+        // Arrange: Refreshes are queued instead of run
+        List<Runnable> queued = new ArrayList<>();
+        sessionScheduleCache = new SessionScheduleCache(sessionService, sessionMapper, queued::add);
+        Session changed = new Session().setId(2L);
+        when(sessionService.getById(2L)).thenReturn(changed);
+        when(sessionMapper.toDto(changed)).thenReturn(dto(2L, "Yin, renamed"));
+        SessionScheduleCache.Snapshot before = sessionScheduleCache.get();
+
+        // Act: A burst of writes to the same session
+        sessionScheduleCache.onSessionChanged(new SessionChangedEvent(2L));
+        sessionScheduleCache.onSessionChanged(new SessionChangedEvent(2L));
+
+        // Assert: The writers did not read anything, a single refresh applies both
+        verify(sessionService, never()).getById(any());
+        assertSame(before, sessionScheduleCache.get());
+        assertEquals(1, queued.size());
+        queued.get(0).run();
+        assertEquals(List.of("Flow", "Yin, renamed"), names(sessionScheduleCache.get()));
+        verify(sessionService, times(1)).getById(2L);
+    }
+
+    @Test
+    public void testOnSessionChanged_FailedRefreshReloadsOnNextRead() {
+        // Arrange
+        SessionScheduleCache.Snapshot before = sessionScheduleCache.get();
+        when(sessionService.getById(2L)).thenThrow(new IllegalStateException("database down"));
+
+        // Act
+        sessionScheduleCache.onSessionChanged(new SessionChangedEvent(2L));
+        SessionScheduleCache.Snapshot after = sessionScheduleCache.get();
+
+        // Assert: The schedule is loaded again under a new tag
+        verify(sessionService, times(2)).findAll();
+        assertNotEquals(before.getETag(), after.getETag());
+    }
+
+    @Test
+    public void testOnSessionChanged_WithoutSessionReloadsEverything() {
+        // Arrange
+        sessionScheduleCache.get();
+
+        // Act: A user was deleted, any session may have listed it
+        sessionScheduleCache.onSessionChanged(new SessionChangedEvent(null));
+
+        // Assert
+        verify(sessionService, times(2)).findAll();
+        verify(sessionService, never()).getById(any());
+    }
+
+    @Test
+    public void testOnSessionChanged_BeforeTheFirstReadDoesNothing() {
+        // Act: A write before anybody read the schedule
+        sessionScheduleCache.onSessionChanged(new SessionChangedEvent(1L));
+
+        // Assert: The first reader loads it in full
+        verifyNoInteractions(sessionService);
+        assertEquals(0, sessionScheduleCache.get().getVersion());
+    }
+
+    @Test
+    public void testLastModified_TracksEachSession() throws InterruptedException {
+        // Arrange
+        long started = sessionScheduleCache.lastModified(1L);
+        Thread.sleep(5);
+
+        // Act: The second session is written
+        sessionScheduleCache.onSessionChanged(new SessionChangedEvent(2L));
+
+        // Assert: The first one keeps its time, and nothing was loaded to answer
+        assertEquals(started, sessionScheduleCache.lastModified(1L));
+        assertTrue(sessionScheduleCache.lastModified(2L) > started);
+        verifyNoInteractions(sessionService);
+    }
+
+    private static SessionDto dto(Long id, String name) {
+        SessionDto dto = new SessionDto();
+        dto.setId(id);
+        dto.setName(name);
+        return dto;
+    }
+
+    private static List<String> names(SessionScheduleCache.Snapshot snapshot) {
+        return snapshot.getSessions().stream().map(SessionDto::getName).collect(Collectors.toList());
+    }
+}
@@ -1,11 +1,19 @@
 package com.openclassrooms.starterjwt.unit.services;
 
+import com.openclassrooms.starterjwt.dto.SessionSummary;
 import com.openclassrooms.starterjwt.exception.BadRequestException;
 import com.openclassrooms.starterjwt.exception.NotFoundException;
 import com.openclassrooms.starterjwt.models.Session;
 import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.models.WaitlistEntry;
+import com.openclassrooms.starterjwt.payload.request.ParticipationRequest;
+import com.openclassrooms.starterjwt.payload.response.ParticipationResult;
+import com.openclassrooms.starterjwt.repository.ParticipationBatchRepository;
 import com.openclassrooms.starterjwt.repository.SessionRepository;
 import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.repository.WaitlistRepository;
+import com.openclassrooms.starterjwt.services.ParticipationStatus;
+import com.openclassrooms.starterjwt.services.SessionChangedEvent;
 import com.openclassrooms.starterjwt.services.SessionService;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -14,10 +22,20 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -32,6 +50,15 @@ public class SessionServiceTest {
     @Mock
     private UserRepository userRepository; // Mock for UserRepository
 
+    @Mock
+    private WaitlistRepository waitlistRepository; // Mock for the waitlist of full sessions
+
+    @Mock
+    private ParticipationBatchRepository participationBatchRepository; // Mock for the bulk registrations
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher; // Mock for the schedule change notifications
+
     @InjectMocks
     private SessionService sessionService; // Injects the mocks into SessionService
 
@@ -62,7 +89,89 @@ public class SessionServiceTest {
         // Assert: Check if the session is created correctly
         assertNotNull(createdSession);
         assertEquals(session.getName(), createdSession.getName());
+        assertEquals(0, createdSession.getSeatsTaken());
         verify(sessionRepository, times(1)).save(session);
+        verify(eventPublisher, times(1)).publishEvent(new SessionChangedEvent(1L));
+    }
+
+    @Test
+    public void testFindPage() {
+        // Arrange: The page query returns bare sessions, the participants are loaded in a second query
+        Session other = new Session();
+        other.setId(2L);
+        when(sessionRepository.findAllByOrderByDateAscIdAsc(PageRequest.of(1, 10))).thenReturn(List.of(other, session));
+        when(sessionRepository.findDistinctByIdIn(List.of(2L, 1L))).thenReturn(List.of(session, other));
+
+        // Act & Assert: The page order is kept
+        assertEquals(List.of(other, session), sessionService.findPage(1, 10));
+    }
+
+    @Test
+    public void testFindPage_Empty() {
+        // Arrange: Nothing on this page
+        when(sessionRepository.findAllByOrderByDateAscIdAsc(PageRequest.of(5, 10))).thenReturn(List.of());
+
+        // Act & Assert: No second query
+        assertTrue(sessionService.findPage(5, 10).isEmpty());
+        verify(sessionRepository, never()).findDistinctByIdIn(any());
+    }
+
+    @Test
+    public void testFindAfter() {
+        // Arrange: Mock repository behavior for the sessions after a cursor
+        Date date = new Date();
+        when(sessionRepository.findAfter(date, 1L, PageRequest.of(0, 10))).thenReturn(List.of(session));
+        when(sessionRepository.findDistinctByIdIn(List.of(1L))).thenReturn(List.of(session));
+
+        // Act & Assert: The keyset query is limited to the page size
+        assertEquals(List.of(session), sessionService.findAfter(date, 1L, 10));
+    }
+
+    @Test
+    public void testFindCalendar() {
+        // Arrange: Two sessions on the second day of a three-day range
+        ZoneId zone = ZoneId.systemDefault();
+        LocalDate from = LocalDate.of(2024, 1, 1);
+        Date morning = Date.from(from.plusDays(1).atTime(9, 0).atZone(zone).toInstant());
+        Date evening = Date.from(from.plusDays(1).atTime(19, 0).atZone(zone).toInstant());
+        SessionSummary first = new SessionSummary(1L, "Morning", morning, 2L, 3);
+        SessionSummary second = new SessionSummary(2L, "Evening", evening, 2L, 7);
+        when(sessionRepository.findSummariesBetween(
+                Date.from(from.atStartOfDay(zone).toInstant()),
+                Date.from(from.plusDays(3).atStartOfDay(zone).toInstant())))
+                .thenReturn(List.of(first, second));
+
+        // Act
+        Map<LocalDate, List<SessionSummary>> calendar = sessionService.findCalendar(from, from.plusDays(2));
+
+        // Assert: Every day of the range is present, sessions are grouped under their own day
+        assertEquals(List.of(from, from.plusDays(1), from.plusDays(2)), new ArrayList<>(calendar.keySet()));
+        assertEquals(List.of(), calendar.get(from));
+        assertEquals(List.of(first, second), calendar.get(from.plusDays(1)));
+        assertEquals(List.of(), calendar.get(from.plusDays(2)));
+    }
+
+    @Test
+    public void testFindSummaries() {
+        // Arrange: Mock repository behavior for the projection queries
+        Date date = new Date();
+        SessionSummary summary = new SessionSummary(1L, "Yoga Session", date, 2L, 12);
+        when(sessionRepository.findSummaries(PageRequest.of(0, 20))).thenReturn(List.of(summary));
+        when(sessionRepository.findSummariesAfter(date, 1L, PageRequest.of(0, 20))).thenReturn(List.of());
+
+        // Act & Assert
+        assertEquals(List.of(summary), sessionService.findSummaries(0, 20));
+        assertTrue(sessionService.findSummariesAfter(date, 1L, 20).isEmpty());
+    }
+
+    @Test
+    public void testExists() {
+        // Arrange: Mock repository behavior
+        when(sessionRepository.existsById(1L)).thenReturn(true);
+
+        // Act & Assert: The existence check does not load the session
+        assertTrue(sessionService.exists(1L));
+        verify(sessionRepository, never()).findById(any());
     }
 
     @Test
@@ -82,7 +191,7 @@ public class SessionServiceTest {
         // Arrange: Mock repository response
         List<Session> sessions = new ArrayList<>();
         sessions.add(session);
-        when(sessionRepository.findAll()).thenReturn(sessions);
+        when(sessionRepository.findAllWithUsers()).thenReturn(sessions);
 
         // Act: Call the service method
         List<Session> result = sessionService.findAll();
@@ -90,13 +199,13 @@ public class SessionServiceTest {
         // Assert: Verify that the list contains the expected session
         assertEquals(1, result.size());
         assertEquals(session.getName(), result.get(0).getName());
-        verify(sessionRepository, times(1)).findAll();
+        verify(sessionRepository, times(1)).findAllWithUsers();
     }
 
     @Test
     public void testGetById() {
         // Arrange: Mock repository response
-        when(sessionRepository.findById(1L)).thenReturn(Optional.of(session));
+        when(sessionRepository.findWithUsersById(1L)).thenReturn(Optional.of(session));
 
         // Act: Call the method
         Session result = sessionService.getById(1L);
@@ -104,20 +213,20 @@ public class SessionServiceTest {
         // Assert: Ensure the session was found
         assertNotNull(result);
         assertEquals(session.getName(), result.getName());
-        verify(sessionRepository, times(1)).findById(1L);
+        verify(sessionRepository, times(1)).findWithUsersById(1L);
     }
 
     @Test
     public void testGetById_NotFound() {
         // Arrange: Mock empty repository response
-        when(sessionRepository.findById(1L)).thenReturn(Optional.empty());
+        when(sessionRepository.findWithUsersById(1L)).thenReturn(Optional.empty());
 
         // Act: Call the method
         Session result = sessionService.getById(1L);
 
         // Assert: Ensure null is returned when session is not found
         assertNull(result);
-        verify(sessionRepository, times(1)).findById(1L);
+        verify(sessionRepository, times(1)).findWithUsersById(1L);
     }
 
     @Test
@@ -137,99 +246,288 @@ public class SessionServiceTest {
         assertNotNull(result);
         assertEquals(updatedSession.getName(), result.getName());
         verify(sessionRepository, times(1)).save(updatedSession);
+        verify(sessionRepository, times(1)).recountSeatsTaken(1L);
     }
 
     @Test
-    public void testParticipate() {
-        // Arrange: Mock session and user repository responses
-        when(sessionRepository.findById(1L)).thenReturn(Optional.of(session));
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+    public void testUpdate_PromotesTheWaitlist() {
+        // Arrange: One more seat than participants and two members waiting
+        User promoted = new User();
+        promoted.setId(2L);
+        session.setCapacity(2);
+        session.getUsers().add(user);
+        WaitlistEntry next = WaitlistEntry.builder().id(5L).sessionId(1L).userId(2L).build();
         when(sessionRepository.save(session)).thenReturn(session);
+        when(waitlistRepository.findFirstBySessionIdOrderByIdAsc(1L)).thenReturn(Optional.of(next));
+        when(userRepository.getById(2L)).thenReturn(promoted);
+
+        // Act
+        Session result = sessionService.update(1L, session);
+
+        // Assert: Only the first in line gets the free seat
+        assertEquals(List.of(user, promoted), result.getUsers());
+        verify(sessionRepository, times(1)).lockById(1L);
+        verify(waitlistRepository, times(1)).delete(next);
+        verify(waitlistRepository, times(1)).findFirstBySessionIdOrderByIdAsc(1L);
+        verify(sessionRepository, times(1)).recountSeatsTaken(1L);
+    }
+
+    @Test
+    public void testUpdate_RosterLargerThanCapacity() {
+        // Arrange: Two participants for a single seat
+        session.setCapacity(1);
+        session.getUsers().add(user);
+        session.getUsers().add(new User());
+
+        // Act & Assert: Expect BadRequestException, nothing is written
+        assertThrows(BadRequestException.class, () -> sessionService.update(1L, session));
+        assertThrows(BadRequestException.class, () -> sessionService.create(session));
+        verify(sessionRepository, never()).save(any());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    public void testParticipate() {
+        // Arrange: Session and user exist, the participation row is inserted
+        when(sessionRepository.existsById(1L)).thenReturn(true);
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(sessionRepository.takeSeat(1L)).thenReturn(1);
+        when(sessionRepository.addParticipant(1L, 1L)).thenReturn(1);
 
         // Act: User participates in the session
-        sessionService.participate(1L, 1L);
+        ParticipationStatus status = sessionService.participate(1L, 1L);
 
-        // Assert: Ensure the user is added to the session
-        assertTrue(session.getUsers().contains(user));
-        verify(sessionRepository, times(1)).findById(1L);
-        verify(userRepository, times(1)).findById(1L);
-        verify(sessionRepository, times(1)).save(session);
+        // Assert: A seat and a single row are taken without loading the session
+        assertEquals(ParticipationStatus.PARTICIPATING, status);
+        verify(sessionRepository, times(1)).addParticipant(1L, 1L);
+        verify(sessionRepository, never()).lockById(any());
+        verify(sessionRepository, never()).findById(any());
+        verify(sessionRepository, never()).save(any());
+        verify(eventPublisher, times(1)).publishEvent(new SessionChangedEvent(1L));
     }
 
     @Test
     public void testParticipate_SessionNotFound() {
-        // Arrange: Mock empty session response
-        when(sessionRepository.findById(1L)).thenReturn(Optional.empty());
+        // Arrange: Session does not exist
+        when(sessionRepository.existsById(1L)).thenReturn(false);
 
         // Act & Assert: Expect NotFoundException
         assertThrows(NotFoundException.class, () -> sessionService.participate(1L, 1L));
-        verify(sessionRepository, times(1)).findById(1L);
-        verify(userRepository, times(1)).findById(1L);
-        verify(sessionRepository, never()).save(any());
+        verify(sessionRepository, never()).addParticipant(any(), any());
     }
 
     @Test
     public void testParticipate_UserNotFound() {
-        // Arrange: Mock session exists, but user does not
-        when(sessionRepository.findById(1L)).thenReturn(Optional.of(session));
-        when(userRepository.findById(1L)).thenReturn(Optional.empty());
+        // Arrange: Session exists, but user does not
+        when(sessionRepository.existsById(1L)).thenReturn(true);
+        when(userRepository.existsById(1L)).thenReturn(false);
 
         // Act & Assert: Expect NotFoundException
         assertThrows(NotFoundException.class, () -> sessionService.participate(1L, 1L));
-        verify(sessionRepository, times(1)).findById(1L);
-        verify(userRepository, times(1)).findById(1L);
-        verify(sessionRepository, never()).save(any());
+        verify(sessionRepository, never()).addParticipant(any(), any());
     }
 
     @Test
     public void testParticipate_AlreadyParticipating() {
-        // Arrange: User already participating
-        session.getUsers().add(user);
-        when(sessionRepository.findById(1L)).thenReturn(Optional.of(session));
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        // Arrange: The conditional insert finds an existing row
+        when(sessionRepository.existsById(1L)).thenReturn(true);
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(sessionRepository.takeSeat(1L)).thenReturn(1);
+        when(sessionRepository.addParticipant(1L, 1L)).thenReturn(0);
+
+        // Act & Assert: Expect BadRequestException
+        assertThrows(BadRequestException.class, () -> sessionService.participate(1L, 1L));
+    }
+
+    @Test
+    public void testParticipate_ConcurrentDuplicate() {
+        // Arrange: A concurrent insert of the same row violates the unique key
+        when(sessionRepository.existsById(1L)).thenReturn(true);
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(sessionRepository.takeSeat(1L)).thenReturn(1);
+        when(sessionRepository.addParticipant(1L, 1L)).thenThrow(new DataIntegrityViolationException("duplicate"));
 
         // Act & Assert: Expect BadRequestException
         assertThrows(BadRequestException.class, () -> sessionService.participate(1L, 1L));
-        verify(sessionRepository, times(1)).findById(1L);
-        verify(userRepository, times(1)).findById(1L);
-        verify(sessionRepository, never()).save(any());
     }
 
     @Test
     public void testNoLongerParticipate() {
-        // Arrange: User is currently participating
-        session.getUsers().add(user);
-        when(sessionRepository.findById(1L)).thenReturn(Optional.of(session));
-        when(sessionRepository.save(session)).thenReturn(session);
+        // Arrange: The participation row exists
+        when(sessionRepository.removeParticipant(1L, 1L)).thenReturn(1);
 
         // Act: Remove user from session
         sessionService.noLongerParticipate(1L, 1L);
 
-        // Assert: Ensure user is removed from session
-        assertFalse(session.getUsers().contains(user));
-        verify(sessionRepository, times(1)).findById(1L);
-        verify(sessionRepository, times(1)).save(session);
+        // Assert: A single delete, the session is neither loaded nor saved
+        verify(sessionRepository, times(1)).removeParticipant(1L, 1L);
+        verify(sessionRepository, times(1)).releaseSeat(1L);
+        verify(sessionRepository, never()).existsById(any());
+        verify(sessionRepository, never()).findById(any());
+        verify(sessionRepository, never()).save(any());
+        verify(eventPublisher, times(1)).publishEvent(new SessionChangedEvent(1L));
+    }
+
+    @Test
+    public void testParticipate_Full() {
+        // Arrange: No seat left, even after locking the session
+        when(sessionRepository.existsById(1L)).thenReturn(true);
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(sessionRepository.takeSeat(1L)).thenReturn(0);
+        when(sessionRepository.isParticipant(1L, 1L)).thenReturn(false);
+        when(waitlistRepository.addToWaitlist(1L, 1L)).thenReturn(1);
+
+        // Act
+        ParticipationStatus status = sessionService.participate(1L, 1L);
+
+        // Assert: The user joins the waitlist, the schedule is unchanged
+        assertEquals(ParticipationStatus.WAITLISTED, status);
+        verify(sessionRepository, times(1)).lockById(1L);
+        verify(sessionRepository, never()).addParticipant(any(), any());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    public void testParticipate_FullAndAlreadyParticipating() {
+        // Arrange: No seat left and the user already holds one
+        when(sessionRepository.existsById(1L)).thenReturn(true);
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(sessionRepository.takeSeat(1L)).thenReturn(0);
+        when(sessionRepository.isParticipant(1L, 1L)).thenReturn(true);
+
+        // Act & Assert: Expect BadRequestException
+        assertThrows(BadRequestException.class, () -> sessionService.participate(1L, 1L));
+        verify(waitlistRepository, never()).addToWaitlist(any(), any());
+    }
+
+    @Test
+    public void testNoLongerParticipate_PromotesTheWaitlist() {
+        // Arrange: The participation row exists and a member is waiting
+        WaitlistEntry next = WaitlistEntry.builder().id(5L).sessionId(1L).userId(2L).build();
+        when(sessionRepository.removeParticipant(1L, 1L)).thenReturn(1);
+        when(waitlistRepository.findFirstBySessionIdOrderByIdAsc(1L)).thenReturn(Optional.of(next));
+        when(sessionRepository.addParticipant(1L, 2L)).thenReturn(1);
+
+        // Act
+        sessionService.noLongerParticipate(1L, 1L);
+
+        // Assert: The seat changes hands without being released
+        verify(waitlistRepository, times(1)).delete(next);
+        verify(sessionRepository, times(1)).addParticipant(1L, 2L);
+        verify(sessionRepository, never()).releaseSeat(any());
+    }
+
+    @Test
+    public void testNoLongerParticipate_LeavesTheWaitlist() {
+        // Arrange: The user was only waiting
+        when(sessionRepository.removeParticipant(1L, 1L)).thenReturn(0);
+        when(waitlistRepository.removeFromWaitlist(1L, 1L)).thenReturn(1);
+
+        // Act
+        sessionService.noLongerParticipate(1L, 1L);
+
+        // Assert: No seat is released
+        verify(sessionRepository, never()).releaseSeat(any());
+        verify(sessionRepository, never()).existsById(any());
     }
 
     @Test
     public void testNoLongerParticipate_SessionNotFound() {
-        // Arrange: Mock empty session response
-        when(sessionRepository.findById(1L)).thenReturn(Optional.empty());
+        // Arrange: Nothing deleted and the session does not exist
+        when(sessionRepository.removeParticipant(1L, 1L)).thenReturn(0);
+        when(sessionRepository.existsById(1L)).thenReturn(false);
 
         // Act & Assert: Expect NotFoundException
         assertThrows(NotFoundException.class, () -> sessionService.noLongerParticipate(1L, 1L));
-        verify(sessionRepository, times(1)).findById(1L);
         verify(sessionRepository, never()).save(any());
     }
 
     @Test
     public void testNoLongerParticipate_NotParticipating() {
-        // Arrange: User is not in the session
-        when(sessionRepository.findById(1L)).thenReturn(Optional.of(session));
+        // Arrange: Nothing deleted but the session exists
+        when(sessionRepository.removeParticipant(1L, 1L)).thenReturn(0);
+        when(sessionRepository.existsById(1L)).thenReturn(true);
 
         // Act & Assert: Expect BadRequestException
         assertThrows(BadRequestException.class, () -> sessionService.noLongerParticipate(1L, 1L));
-        verify(sessionRepository, times(1)).findById(1L);
         verify(sessionRepository, never()).save(any());
     }
+
+    @Test
+    public void testParticipateAll() {
+        // Arrange: Session 1 has two free seats, session 2 is unlimited, user 3 alone waits for session 1
+        Map<Long, Integer> freeSeats = new HashMap<>();
+        freeSeats.put(1L, 2);
+        freeSeats.put(2L, null);
+        when(participationBatchRepository.lockFreeSeats(Set.of(1L, 2L, 9L))).thenReturn(freeSeats);
+        when(participationBatchRepository.findExistingUserIds(Set.of(1L, 2L, 3L, 4L, 8L)))
+                .thenReturn(new HashSet<>(List.of(1L, 2L, 3L, 4L)));
+        when(participationBatchRepository.findRegistrations(Set.of(1L, 2L), Set.of(1L, 2L, 3L, 4L)))
+                .thenReturn(Map.of(new ParticipationRequest(1L, 3L), ParticipationStatus.WAITLISTED));
+        when(participationBatchRepository.countWaiting(Set.of(1L, 2L))).thenReturn(new HashMap<>(Map.of(1L, 1)));
+
+        // Act
+        List<ParticipationResult> results = sessionService.participateAll(List.of(
+                new ParticipationRequest(1L, 1L),
+                new ParticipationRequest(1L, 1L),
+                new ParticipationRequest(1L, 3L),
+                new ParticipationRequest(9L, 1L),
+                new ParticipationRequest(1L, 8L),
+                new ParticipationRequest(1L, 2L),
+                new ParticipationRequest(1L, 4L),
+                new ParticipationRequest(2L, 4L)));
+
+        // Assert: One status per item in input order, the waiting member is seated first
+        assertEquals(List.of(
+                new ParticipationResult(1L, 1L, ParticipationStatus.PARTICIPATING),
+                new ParticipationResult(1L, 1L, ParticipationStatus.ALREADY_REGISTERED),
+                new ParticipationResult(1L, 3L, ParticipationStatus.PARTICIPATING),
+                new ParticipationResult(9L, 1L, ParticipationStatus.NOT_FOUND),
+                new ParticipationResult(1L, 8L, ParticipationStatus.NOT_FOUND),
+                new ParticipationResult(1L, 2L, ParticipationStatus.WAITLISTED),
+                new ParticipationResult(1L, 4L, ParticipationStatus.WAITLISTED),
+                new ParticipationResult(2L, 4L, ParticipationStatus.PARTICIPATING)), results);
+        verify(participationBatchRepository, times(1)).removeFromWaitlist(List.of(new ParticipationRequest(1L, 3L)));
+        verify(participationBatchRepository, times(1)).addParticipants(List.of(
+                new ParticipationRequest(1L, 3L), new ParticipationRequest(1L, 1L), new ParticipationRequest(2L, 4L)));
+        verify(participationBatchRepository, times(1)).addToWaitlist(List.of(
+                new ParticipationRequest(1L, 2L), new ParticipationRequest(1L, 4L)));
+        verify(participationBatchRepository, times(1)).takeSeats(Map.of(1L, 2, 2L, 1));
+        verify(eventPublisher, times(1)).publishEvent(new SessionChangedEvent(1L));
+        verify(eventPublisher, times(1)).publishEvent(new SessionChangedEvent(2L));
+    }
+
+    @Test
+    public void testParticipateAll_WaitsBehindTheWaitlist() {
+        // Arrange: A free seat, but a member who is not checking in waits for it
+        when(participationBatchRepository.lockFreeSeats(Set.of(1L))).thenReturn(new HashMap<>(Map.of(1L, 1)));
+        when(participationBatchRepository.findExistingUserIds(Set.of(1L))).thenReturn(new HashSet<>(List.of(1L)));
+        when(participationBatchRepository.findRegistrations(Set.of(1L), Set.of(1L))).thenReturn(new HashMap<>());
+        when(participationBatchRepository.countWaiting(Set.of(1L))).thenReturn(new HashMap<>(Map.of(1L, 1)));
+
+        // Act
+        List<ParticipationResult> results = sessionService.participateAll(List.of(new ParticipationRequest(1L, 1L)));
+
+        // Assert: The newcomer queues up, no seat is taken
+        assertEquals(ParticipationStatus.WAITLISTED, results.get(0).getStatus());
+        verify(participationBatchRepository, times(1)).addToWaitlist(List.of(new ParticipationRequest(1L, 1L)));
+        verify(participationBatchRepository, never()).addParticipants(any());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    public void testParticipateAll_NothingValid() {
+        // Arrange: Neither the session nor the user exist
+        when(participationBatchRepository.lockFreeSeats(Set.of(9L))).thenReturn(new HashMap<>());
+        when(participationBatchRepository.findExistingUserIds(Set.of(8L))).thenReturn(new HashSet<>());
+
+        // Act
+        List<ParticipationResult> results = sessionService.participateAll(List.of(new ParticipationRequest(9L, 8L)));
+
+        // Assert: Nothing is written
+        assertEquals(ParticipationStatus.NOT_FOUND, results.get(0).getStatus());
+        verify(participationBatchRepository, never()).findRegistrations(any(), any());
+        verify(participationBatchRepository, never()).addParticipants(any());
+        verifyNoInteractions(eventPublisher);
+    }
 }
@@ -2,6 +2,9 @@ package com.openclassrooms.starterjwt.unit.services;
 
 import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.security.jwt.TokenDenyList;
+import com.openclassrooms.starterjwt.security.services.UserDetailsCache;
+import com.openclassrooms.starterjwt.services.SessionChangedEvent;
 import com.openclassrooms.starterjwt.services.UserService;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -10,7 +13,9 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -22,6 +27,15 @@ public class UserServiceTest {
     @Mock
     private UserRepository userRepository; // Mock the UserRepository to avoid real database interactions
 
+    @Mock
+    private UserDetailsCache userDetailsCache; // Mock the principal cache evicted on delete
+
+    @Mock
+    private TokenDenyList tokenDenyList; // Mock the deny list revoking claims-carrying tokens on delete
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher; // Mock the schedule change notification sent on delete
+
     @InjectMocks
     private UserService userService; // Inject the mocked repository into the UserService
 
@@ -43,8 +57,11 @@ public class UserServiceTest {
         // Act: Call the delete method from UserService
         userService.delete(1L);
 
-        // Assert: Verify that deleteById was called exactly once
+        // Assert: Verify that deleteById was called exactly once and the user's tokens no longer authenticate
         verify(userRepository, times(1)).deleteById(1L);
+        verify(userDetailsCache, times(1)).evict(1L);
+        verify(tokenDenyList, times(1)).revoke(1L);
+        verify(eventPublisher, times(1)).publishEvent(new SessionChangedEvent(null));
     }
 
     @Test
@@ -73,4 +90,39 @@ public class UserServiceTest {
         assertNull(foundUser);
         verify(userRepository, times(1)).findById(1L);
     }
+
+    @Test
+    public void testFindAllById_PreservesOrderAndDropsUnknownIds() {
+        // Arrange: The repository returns the known users in any order
+        User other = new User();
+        other.setId(2L);
+        when(userRepository.findAllById(List.of(2L, 3L, 1L))).thenReturn(List.of(user, other));
+
+        // Act: Resolve the ids in a single call
+        List<User> users = userService.findAllById(List.of(2L, 3L, 1L));
+
+        // Assert: Requested order is kept and the unknown id is dropped
+        assertEquals(List.of(other, user), users);
+        verify(userRepository, times(1)).findAllById(List.of(2L, 3L, 1L));
+        verify(userRepository, never()).findById(any());
+    }
+
+    @Test
+    public void testFindAllById_DuplicateIds() {
+        // Arrange: The same user is listed twice
+        when(userRepository.findAllById(List.of(1L))).thenReturn(List.of(user));
+
+        // Act
+        List<User> users = userService.findAllById(List.of(1L, 1L));
+
+        // Assert: The user is resolved once
+        assertEquals(List.of(user), users);
+    }
+
+    @Test
+    public void testFindAllById_EmptyIds() {
+        // Act & Assert: No query for an empty list
+        assertTrue(userService.findAllById(List.of()).isEmpty());
+        verifyNoInteractions(userRepository);
+    }
 }
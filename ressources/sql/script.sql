@@ -1,3 +1,5 @@
+-- Initial schema. Later changes are applied by the Flyway migrations in back/src/main/resources/db/migration.
+
 CREATE TABLE `TEACHERS` (
   `id` INT PRIMARY KEY AUTO_INCREMENT,
   `last_name` VARCHAR(40),